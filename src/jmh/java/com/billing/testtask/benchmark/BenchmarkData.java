@@ -0,0 +1,104 @@
+package com.billing.testtask.benchmark;
+
+import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.entity.TagEntity;
+import com.billing.testtask.entity.TaskEntity;
+import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.model.TaskModel;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Генератор тестовых данных для бенчмарков.
+ * Данные детерминированы, чтобы результаты разных запусков были сравнимы.
+ */
+public final class BenchmarkData {
+
+    public static final LocalDate START_DATE = LocalDate.of(2030, 1, 1);
+
+    private static final String DESCRIPTION = "Описание задачи для измерения сериализации и преобразования моделей";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Типы задач (как в начальных данных миграции V1)
+     */
+    public static List<TypeEntity> types() {
+        return List.of(
+                TypeEntity.builder().id(1L).title("Срочная").level(100).build(),
+                TypeEntity.builder().id(2L).title("Важная").level(75).build(),
+                TypeEntity.builder().id(3L).title("Обычная").level(50).build(),
+                TypeEntity.builder().id(4L).title("Несрочная").level(25).build());
+    }
+
+    /**
+     * Теги (без задач)
+     */
+    public static List<TagEntity> tags(int size) {
+        List<TagEntity> tags = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tags.add(TagEntity.builder().id((long) i + 1).title("Тег " + (i + 1)).tasks(new ArrayList<>()).build());
+        }
+        return tags;
+    }
+
+    /**
+     * Сущности задач, разделяющие небольшое число тегов и типов
+     * (повторяющиеся теги и типы сериализуются ссылками @JsonIdentityInfo).
+     */
+    public static List<TaskEntity> taskEntities(int size) {
+        List<TypeEntity> types = types();
+        List<TagEntity> tags = tags(Math.max(1, size / 100));
+        List<TaskEntity> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(TaskEntity.builder()
+                    .id((long) i + 1)
+                    .name("Задача " + (i + 1))
+                    .description(DESCRIPTION)
+                    .taskDate(START_DATE.plusDays(i % 365))
+                    .tag(tags.get(i % tags.size()))
+                    .type(types.get(i % types.size()))
+                    .build());
+        }
+        return tasks;
+    }
+
+    /**
+     * Модели задач
+     */
+    public static List<TaskModel> taskModels(int size) {
+        List<TaskModel> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(TaskModel.builder()
+                    .id((long) i + 1)
+                    .name("Задача " + (i + 1))
+                    .description(DESCRIPTION)
+                    .taskDate(START_DATE.plusDays(i % 365))
+                    .tagId(1L)
+                    .typeId((long) (i % 4) + 1)
+                    .build());
+        }
+        return tasks;
+    }
+
+    /**
+     * Задачи с заголовком типа
+     */
+    public static List<GetTaskInfo> taskInfos(int size) {
+        List<TypeEntity> types = types();
+        List<GetTaskInfo> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(GetTaskInfo.builder()
+                    .id((long) i + 1)
+                    .name("Задача " + (i + 1))
+                    .description(DESCRIPTION)
+                    .taskDate(START_DATE.plusDays(i % 365))
+                    .typeTitle(types.get(i % types.size()).getTitle())
+                    .build());
+        }
+        return tasks;
+    }
+}
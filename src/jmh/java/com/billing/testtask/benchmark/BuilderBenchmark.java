@@ -0,0 +1,54 @@
+package com.billing.testtask.benchmark;
+
+import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.model.TaskModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание моделей через Lombok-builder в сравнении с конструктором
+ * (конструктор используется в JPQL-проекциях репозиториев).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BuilderBenchmark {
+
+    private long id = 1;
+    private final LocalDate date = BenchmarkData.START_DATE;
+
+    @Benchmark
+    public TaskModel taskModelBuilder() {
+        return TaskModel.builder()
+                .id(id++)
+                .name("Задача")
+                .description("Описание")
+                .taskDate(date)
+                .tagId(1L)
+                .typeId(2L)
+                .build();
+    }
+
+    @Benchmark
+    public TaskModel taskModelConstructor() {
+        return new TaskModel(id++, "Задача", "Описание", date, 1L, 2L);
+    }
+
+    @Benchmark
+    public GetTaskInfo taskInfoBuilder() {
+        return GetTaskInfo.builder()
+                .id(id++)
+                .name("Задача")
+                .description("Описание")
+                .taskDate(date)
+                .typeTitle("Срочная")
+                .build();
+    }
+
+    @Benchmark
+    public GetTaskInfo taskInfoConstructor() {
+        return new GetTaskInfo(id++, "Задача", "Описание", date, "Срочная");
+    }
+}
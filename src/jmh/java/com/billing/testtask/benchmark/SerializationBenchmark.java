@@ -0,0 +1,103 @@
+package com.billing.testtask.benchmark;
+
+import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.dto.TagWithTask;
+import com.billing.testtask.entity.TagEntity;
+import com.billing.testtask.entity.TaskEntity;
+import com.billing.testtask.model.TagModel;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов API в JSON.
+ * ObjectMapper настраивается так же, как в приложении (Jackson2ObjectMapperBuilder со значениями Spring Boot),
+ * результат пишется в поток-заглушку, как при записи в ответ сервлета.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private ObjectWriter tagModelWriter;
+    private ObjectWriter tagWithTaskWriter;
+    private ObjectWriter taskInfoListWriter;
+    private ObjectWriter taskEntityListWriter;
+    private ObjectWriter tagEntityListWriter;
+
+    private TagModel tagModel;
+    private TagWithTask tagWithTask;
+    private List<GetTaskInfo> taskInfos;
+    private List<TaskEntity> taskEntities;
+    private List<TagEntity> tagEntities;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        tagModelWriter = mapper.writerFor(TagModel.class);
+        tagWithTaskWriter = mapper.writerFor(TagWithTask.class);
+        taskInfoListWriter = mapper.writerFor(new TypeReference<List<GetTaskInfo>>() {
+        });
+        taskEntityListWriter = mapper.writerFor(new TypeReference<List<TaskEntity>>() {
+        });
+        tagEntityListWriter = mapper.writerFor(new TypeReference<List<TagEntity>>() {
+        });
+
+        tagModel = TagModel.builder().id(1L).title("Тег 1").tasks(BenchmarkData.taskModels(size)).build();
+        taskInfos = BenchmarkData.taskInfos(size);
+        tagWithTask = TagWithTask.builder().id(1L).title("Тег 1").tasks(taskInfos).build();
+        taskEntities = BenchmarkData.taskEntities(size);
+        tagEntities = BenchmarkData.tags(size);
+    }
+
+    /**
+     * GET /api/tags/{id}
+     */
+    @Benchmark
+    public void tagModel() throws IOException {
+        tagModelWriter.writeValue(OutputStream.nullOutputStream(), tagModel);
+    }
+
+    /**
+     * GET /api/tags/{id}/with-tasks
+     */
+    @Benchmark
+    public void tagWithTask() throws IOException {
+        tagWithTaskWriter.writeValue(OutputStream.nullOutputStream(), tagWithTask);
+    }
+
+    /**
+     * GET /api/tasks/by-date
+     */
+    @Benchmark
+    public void taskInfoList() throws IOException {
+        taskInfoListWriter.writeValue(OutputStream.nullOutputStream(), taskInfos);
+    }
+
+    /**
+     * Сущности задач с вложенными тегами и типами: повторные теги и типы
+     * заменяются идентификаторами (@JsonIdentityInfo)
+     */
+    @Benchmark
+    public void taskEntityListWithIdentity() throws IOException {
+        taskEntityListWriter.writeValue(OutputStream.nullOutputStream(), taskEntities);
+    }
+
+    /**
+     * GET /api/tags/with-tasks
+     */
+    @Benchmark
+    public void tagEntityListWithIdentity() throws IOException {
+        tagEntityListWriter.writeValue(OutputStream.nullOutputStream(), tagEntities);
+    }
+}
@@ -0,0 +1,66 @@
+package com.billing.testtask.service.impl;
+
+import com.billing.testtask.benchmark.BenchmarkData;
+import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.entity.TaskEntity;
+import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.repository.TypeRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразования моделей в сервисах: сущность задачи в модель (TaskServiceImpl.convertToTaskModel)
+ * и модели задач в GetTaskInfo с сортировкой по приоритету типа (TypeRegistry.sortByPriority).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MappingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private List<TaskEntity> entities;
+    private List<TaskModel> models;
+    private TypeRegistry typeRegistry;
+
+    @Setup
+    public void setUp() {
+        entities = BenchmarkData.taskEntities(size);
+        models = BenchmarkData.taskModels(size);
+
+        // Реестру нужен только список типов, остальные методы репозитория не вызываются
+        TypeRepository typeRepository = (TypeRepository) Proxy.newProxyInstance(
+                TypeRepository.class.getClassLoader(),
+                new Class<?>[]{TypeRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAllByOrderByLevelAsc")) {
+                        return BenchmarkData.types().stream()
+                                .sorted(Comparator.comparing(TypeEntity::getLevel))
+                                .toList();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        typeRegistry = new TypeRegistry(typeRepository, event -> {
+        }, null);
+        typeRegistry.reload();
+    }
+
+    @Benchmark
+    public void convertToTaskModel(Blackhole blackhole) {
+        for (TaskEntity entity : entities) {
+            blackhole.consume(TaskServiceImpl.convertToTaskModel(entity));
+        }
+    }
+
+    @Benchmark
+    public List<GetTaskInfo> sortByPriority() {
+        return typeRegistry.sortByPriority(models);
+    }
+}
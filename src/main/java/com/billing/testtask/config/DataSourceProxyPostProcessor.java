@@ -0,0 +1,40 @@
+package com.billing.testtask.config;
+
+import com.billing.testtask.metrics.QueryExecutionLogger;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Оборачивает источник данных приложения (бин dataSource - стандартный пул Spring Boot или маршрутизатор реплики)
+ * в прокси datasource-proxy: каждый оператор учитывается в статистике запроса к API,
+ * в лог попадают только медленные операторы (sql.slow-query-threshold).
+ * Пулы основной базы и реплики по отдельности не оборачиваются, поэтому служебные запросы
+ * проверки отставания реплики в статистику не попадают.
+ */
+@Component
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    private final Duration slowQueryThreshold;
+
+    public DataSourceProxyPostProcessor(@Value("${sql.slow-query-threshold:200ms}") Duration slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!DATA_SOURCE_BEAN.equals(beanName) || !(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(DATA_SOURCE_BEAN)
+                .listener(new QueryExecutionLogger(slowQueryThreshold))
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.billing.testtask.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Источники данных при настроенной реплике для чтения (spring.datasource.replica.url).
+ * <p>
+ * Основная база настраивается свойствами spring.datasource.*, реплика - spring.datasource.replica.*
+ * (имя пользователя и пароль по умолчанию те же). Приложение (JPA, Flyway) работает с
+ * {@link ReplicaRoutingDataSource}, который отдает реплике только read-only транзакции.
+ * Без свойства spring.datasource.replica.url используется стандартный источник данных Spring Boot.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${spring.datasource.replica.url}") String url,
+                                              @Value("${spring.datasource.replica.username:}") String username,
+                                              @Value("${spring.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username.isEmpty() ? properties.determineUsername() : username)
+                .password(password.isEmpty() ? properties.determinePassword() : password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                      HikariDataSource replicaDataSource,
+                                                      @Value("${replica.max-lag:16MB}") DataSize maxLag,
+                                                      @Value("${replica.read-your-writes:5s}") Duration readYourWrites,
+                                                      MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource dataSource =
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, maxLag.toBytes(), readYourWrites);
+        Gauge.builder("db.replica.lag", dataSource, ReplicaRoutingDataSource::getReplicaLagBytes)
+                .baseUnit("bytes")
+                .description("Отставание реплики от основной базы по WAL")
+                .register(meterRegistry);
+        Gauge.builder("db.replica.available", dataSource, routing -> routing.isReplicaAvailable() ? 1 : 0)
+                .description("Обслуживает ли реплика чтение")
+                .register(meterRegistry);
+        return dataSource;
+    }
+
+    /**
+     * Источник данных приложения: соединение берется при первом запросе, а не в начале транзакции,
+     * чтобы маршрутизация видела признак readOnly.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,258 @@
+package com.billing.testtask.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Источник данных, направляющий read-only транзакции в реплику, остальные запросы - в основную базу.
+ * <p>
+ * Решение принимается при получении соединения, поэтому источник оборачивается в
+ * LazyConnectionDataSourceProxy: соединение берется при первом запросе внутри транзакции,
+ * когда признак readOnly уже установлен. В основную базу направляются также:
+ * <ul>
+ *     <li>чтения клиента в течение окна read-your-writes после фиксации его транзакции,
+ *     выполнившей INSERT, UPDATE или DELETE (read-write транзакции без изменений не учитываются);</li>
+ *     <li>чтения внутри {@link #readFromPrimary}, которым нельзя видеть отстающие данные;</li>
+ *     <li>все чтения, пока реплика недоступна или отстает больше допустимого.</li>
+ * </ul>
+ * Клиент - пользователь вместе с заголовком {@value #CLIENT_HEADER} запроса, а без заголовка - с адресом клиента:
+ * у нескольких клиентов может быть общая учетная запись.
+ * Отставание проверяется периодически: позиция WAL основной базы сравнивается с позицией,
+ * воспроизведенной репликой. База, которая не является standby (например, вторая локальная база
+ * вместо реплики), считается реплицируемой без отставания.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Ключи целевых источников
+     */
+    public enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    /**
+     * Заголовок запроса с идентификатором клиента для read-your-writes
+     */
+    public static final String CLIENT_HEADER = "X-Client-Id";
+
+    private static final Set<QueryType> WRITES = Set.of(QueryType.INSERT, QueryType.UPDATE, QueryType.DELETE);
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxLagBytes;
+    private final long readYourWritesMillis;
+
+    /**
+     * Время фиксации последней транзакции с изменениями по клиенту
+     */
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    /**
+     * Ключ ресурса транзакции: клиент, изменения которого записываются после фиксации
+     */
+    private final Object writeMarker = new Object();
+
+    private volatile boolean replicaAvailable = true;
+    private volatile long replicaLagBytes;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLagBytes, Duration readYourWrites) {
+        this.primary = ProxyDataSourceBuilder.create(primary)
+                .name("primary")
+                .afterQuery(this::onPrimaryQuery)
+                .build();
+        this.replica = replica;
+        this.maxLagBytes = maxLagBytes;
+        this.readYourWritesMillis = readYourWrites.toMillis();
+        setTargetDataSources(Map.of(Target.PRIMARY, this.primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Выполняет чтение в основной базе независимо от признака readOnly транзакции.
+     * Соединение выбирается при первом запросе, поэтому запросы должны выполняться внутри action.
+     *
+     * @param action чтение
+     * @return результат чтения
+     */
+    public static <T> T readFromPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_READS.get();
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_READS.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Target determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARY_READS.get() != null) {
+            return Target.PRIMARY;
+        }
+        String client = currentClient();
+        if (!replicaAvailable || (client != null && wroteRecently(client))) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+
+    /**
+     * Соединение с выбранной базой; если реплика не выдала соединение, чтение уходит в основную базу,
+     * а реплика исключается до следующей успешной проверки.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Target.REPLICA) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                markUnavailable(e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Проверяет доступность реплики и ее отставание от основной базы.
+     */
+    @Scheduled(fixedDelayString = "${replica.check-interval:5000}")
+    public void checkReplica() {
+        String primaryLsn;
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_current_wal_lsn()::text")) {
+            rs.next();
+            primaryLsn = rs.getString(1);
+        } catch (SQLException e) {
+            log.debug("Позиция WAL основной базы не получена, проверка реплики пропущена", e);
+            return;
+        }
+
+        try (Connection connection = replica.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT pg_wal_lsn_diff(CAST(? AS pg_lsn), pg_last_wal_replay_lsn())")) {
+            statement.setString(1, primaryLsn);
+            long lag;
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                // NULL: база не является standby
+                lag = Math.max(0, rs.getLong(1));
+            }
+            replicaLagBytes = lag;
+            boolean available = lag <= maxLagBytes;
+            if (available != replicaAvailable) {
+                if (available) {
+                    log.info("Реплика снова обслуживает чтение, отставание {} байт", lag);
+                } else {
+                    log.warn("Реплика отстает на {} байт, чтение переведено на основную базу", lag);
+                }
+            }
+            replicaAvailable = available;
+        } catch (SQLException e) {
+            markUnavailable(e);
+        }
+        lastWrites.values().removeIf(time -> System.currentTimeMillis() - time > readYourWritesMillis);
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public long getReplicaLagBytes() {
+        return replicaLagBytes;
+    }
+
+    private boolean wroteRecently(String client) {
+        Long time = lastWrites.get(client);
+        return time != null && System.currentTimeMillis() - time <= readYourWritesMillis;
+    }
+
+    /**
+     * Отмечает клиента после фиксации транзакции, выполнившей в основной базе INSERT, UPDATE или DELETE;
+     * изменение вне транзакции отмечается сразу.
+     */
+    private void onPrimaryQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        if (!execution.isSuccess()
+                || queries.stream().noneMatch(query -> WRITES.contains(QueryUtils.getQueryType(query.getQuery())))) {
+            return;
+        }
+        String client = currentClient();
+        if (client == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lastWrites.put(client, System.currentTimeMillis());
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(writeMarker)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(writeMarker, client);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWrites.put(client, System.currentTimeMillis());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writeMarker);
+            }
+        });
+    }
+
+    private void markUnavailable(SQLException e) {
+        if (replicaAvailable) {
+            log.warn("Реплика недоступна, чтение переведено на основную базу: {}", e.getMessage());
+        }
+        replicaAvailable = false;
+    }
+
+    /**
+     * Клиент текущего запроса: пользователь и идентификатор из заголовка {@value #CLIENT_HEADER} или адрес клиента.
+     *
+     * @return ключ клиента или null вне запроса от аутентифицированного пользователя
+     */
+    private static String currentClient() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (authentication == null || !(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        String client = request.getHeader(CLIENT_HEADER);
+        return authentication.getName() + "|" + (client != null && !client.isBlank() ? client : request.getRemoteAddr());
+    }
+}
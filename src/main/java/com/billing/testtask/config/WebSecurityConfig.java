@@ -1,7 +1,10 @@
 package com.billing.testtask.config;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.env.Environment;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -12,6 +15,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @Configuration
 @EnableWebSecurity
@@ -23,7 +29,29 @@ public class WebSecurityConfig {
         this.env = env;
     }
 
+    /**
+     * Эндпоинты actuator на отдельном порту управления: health и prometheus открыты для мониторинга,
+     * остальные доступны администратору. Перенаправление на HTTPS к ним не применяется.
+     * Цепочка охватывает и прочие запросы порта управления (например, страницу ошибки).
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(new OrRequestMatcher(EndpointRequest.toAnyEndpoint(), this::isManagementPortRequest))
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        .requestMatchers(EndpointRequest.to("prometheus")).permitAll()
+                        .anyRequest().hasRole("ADMIN")
+                )
+                .httpBasic(Customizer.withDefaults());
+
+        return http.build();
+    }
+
     @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         if (isSslEnabled()) {
             http.requiresChannel(channel ->
@@ -69,7 +97,16 @@ public class WebSecurityConfig {
                 .roles("ADMIN")
                 .build();
 
-        return new InMemoryUserDetailsManager(user, admin);
+        // Возвращается только поиск пользователя: InMemoryUserDetailsManager также реализует
+        // UserDetailsPasswordService, и Spring Security после первой проверки перекодировал бы {noop}-пароли
+        // в bcrypt, после чего каждый запрос с Basic-аутентификацией вычислял бы bcrypt (~100 мс CPU)
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(user, admin);
+        return users::loadUserByUsername;
+    }
+
+    private boolean isManagementPortRequest(HttpServletRequest request) {
+        Integer managementPort = env.getProperty("local.management.port", Integer.class);
+        return managementPort != null && request.getLocalPort() == managementPort;
     }
 
     private boolean isSslEnabled() {
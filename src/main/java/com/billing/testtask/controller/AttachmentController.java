@@ -0,0 +1,180 @@
+package com.billing.testtask.controller;
+
+import com.billing.testtask.dto.AttachmentFile;
+import com.billing.testtask.dto.AttachmentInfo;
+import com.billing.testtask.service.AttachmentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * REST контроллер для вложений задач.
+ * Загрузка читает тело запроса потоком без multipart-разбора, выгрузка поддерживает
+ * запросы диапазонов (Range), условные запросы (ETag) и sendfile контейнера.
+ * Sendfile работает только на соединении без TLS (TLS завершается на прокси перед приложением).
+ */
+@RestController
+@RequestMapping("/api/tasks/{id}/attachments")
+@Tag(name = "Attachment API", description = "Операции с вложениями задач")
+public class AttachmentController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    /**
+     * Сохраняет тело запроса как вложение задачи.
+     *
+     * @param id      идентификатор задачи
+     * @param name    имя файла вложения
+     * @param request HTTP-запрос с содержимым файла
+     * @return сведения о сохраненном вложении (размер и SHA-256)
+     * @throws IOException при ошибках чтения запроса или записи файла
+     */
+    @Operation(summary = "Загрузить вложение",
+            description = "Сохраняет тело запроса как вложение задачи (без multipart). " +
+                    "Вложение с тем же именем заменяется",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Вложение сохранено"),
+                    @ApiResponse(responseCode = "404", description = "Задача не найдена"),
+                    @ApiResponse(responseCode = "413", description = "Вложение превышает допустимый размер")
+            })
+    @PutMapping(value = "/{name:.+}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AttachmentInfo> upload(
+            @PathVariable("id") Long id,
+            @PathVariable("name") String name,
+            HttpServletRequest request
+    ) throws IOException {
+        AttachmentInfo info = attachmentService.store(id, name, request.getInputStream(), request.getContentLengthLong());
+        return new ResponseEntity<>(info, HttpStatus.CREATED);
+    }
+
+    /**
+     * Отдает вложение задачи целиком или диапазоном байтов.
+     *
+     * @param id       идентификатор задачи
+     * @param name     имя файла вложения
+     * @param request  HTTP-запрос (заголовки Range, If-Range, If-None-Match)
+     * @param response HTTP-ответ
+     * @throws IOException при ошибках чтения файла или записи ответа
+     */
+    @Operation(summary = "Скачать вложение",
+            description = "Возвращает вложение задачи. Поддерживает Range (один диапазон) и If-None-Match",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Вложение целиком"),
+                    @ApiResponse(responseCode = "206", description = "Диапазон байтов вложения"),
+                    @ApiResponse(responseCode = "304", description = "Вложение не изменилось"),
+                    @ApiResponse(responseCode = "404", description = "Вложение не найдено"),
+                    @ApiResponse(responseCode = "416", description = "Диапазон вне файла")
+            })
+    @GetMapping("/{name:.+}")
+    public void download(
+            @PathVariable("id") Long id,
+            @PathVariable("name") String name,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        AttachmentFile file = attachmentService.find(id, name);
+        if (new ServletWebRequest(request, response).checkNotModified(file.getEtag(), file.getLastModified())) {
+            return;
+        }
+
+        long size = file.getSize();
+        long start = 0;
+        long end = size - 1;
+        HttpRange range = requestedRange(request, file.getEtag());
+        if (range != null) {
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                start = size;
+            }
+            if (start >= size || start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        long length = end - start + 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(name, StandardCharsets.UTF_8).build().toString());
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat передает файл в сокет системным вызовом sendfile после выхода из обработчика
+            request.setAttribute(SENDFILE_FILENAME, file.getPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        // sendfile недоступен (TLS, в том числе при настройках по умолчанию): файл копируется в ответ через transferTo
+        try (FileChannel channel = FileChannel.open(file.getPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    /**
+     * Запрошенный диапазон или null, если нужно отдать файл целиком
+     * (нет заголовка Range, несколько диапазонов, некорректный заголовок или If-Range не совпадает с ETag).
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
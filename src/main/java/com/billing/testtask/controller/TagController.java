@@ -1,5 +1,6 @@
 package com.billing.testtask.controller;
 
+import com.billing.testtask.dto.TagSummary;
 import com.billing.testtask.dto.TagWithTask;
 import com.billing.testtask.entity.TagEntity;
 import io.swagger.v3.oas.annotations.Operation;
@@ -8,11 +9,14 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import com.billing.testtask.model.TagModel;
 import com.billing.testtask.service.impl.TagServiceImpl;
 
@@ -37,10 +41,12 @@ public class TagController {
      *
      * @param tagModel DTO с данными тега
      * @param bindingResult результат валидации
+     * @param withTasks вернуть в ответе задачи тега
      * @return созданный/обновленный тег
      */
     @Operation(summary = "Создать или обновить тег",
-            description = "Создает новый тег или обновляет существующий",
+            description = "Создает новый тег или обновляет существующий. " +
+                    "Задачи тега возвращаются только при withTasks=true",
             responses = {
                     @ApiResponse(responseCode = "201", description = "Тег успешно создан/обновлен",
                             content = @Content(schema = @Schema(implementation = TagModel.class))),
@@ -50,29 +56,88 @@ public class TagController {
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> createTag(
+            @RequestBody @Valid TagModel tagModel,
+            BindingResult bindingResult,
+            @RequestParam(defaultValue = "false") boolean withTasks
+    ) {
+        if (bindingResult.hasErrors())
+            return new ResponseEntity<>(bindingResult.getAllErrors().toString(), HttpStatus.INTERNAL_SERVER_ERROR);
+        else
+            return new ResponseEntity<>(tagService.save(tagModel, withTasks), HttpStatus.CREATED);
+    }
+
+    /**
+     * Переименовывает тег.
+     *
+     * @param id идентификатор тега
+     * @param tagModel DTO с новым заголовком
+     * @param bindingResult результат валидации
+     * @return тег с новым заголовком (без задач)
+     */
+    @Operation(summary = "Переименовать тег",
+            description = "Изменяет заголовок тега одним запросом UPDATE, задачи тега не загружаются",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Тег переименован",
+                            content = @Content(schema = @Schema(implementation = TagModel.class))),
+                    @ApiResponse(responseCode = "404", description = "Тег не найден"),
+                    @ApiResponse(responseCode = "500", description = "Ошибка сервера.",
+                            content = @Content)
+            })
+    @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> renameTag(
+            @PathVariable("id") Long id,
             @RequestBody @Valid TagModel tagModel,
             BindingResult bindingResult
     ) {
         if (bindingResult.hasErrors())
             return new ResponseEntity<>(bindingResult.getAllErrors().toString(), HttpStatus.INTERNAL_SERVER_ERROR);
         else
-            return new ResponseEntity<>(tagService.save(tagModel), HttpStatus.CREATED);
+            return new ResponseEntity<>(tagService.rename(id, tagModel.getTitle()), HttpStatus.OK);
+    }
+
+    /**
+     * Переименовывает несколько тегов.
+     *
+     * @param tags пары идентификатор - новый заголовок
+     * @return переименованные теги (без задач)
+     */
+    @Operation(summary = "Переименовать несколько тегов",
+            description = "Изменяет заголовки тегов одним запросом UPDATE. Если какой-либо тег не найден, " +
+                    "ни один тег не переименовывается",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Теги переименованы"),
+                    @ApiResponse(responseCode = "404", description = "Тег не найден"),
+                    @ApiResponse(responseCode = "500", description = "Ошибка сервера.",
+                            content = @Content)
+            })
+    @PatchMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<TagModel>> renameTags(@RequestBody List<TagModel> tags) {
+        return ResponseEntity.ok(tagService.renameAll(tags));
     }
 
     /**
      * Получает тег по его идентификатору.
+     * Если версия тега совпадает с If-None-Match, отвечает 304 без загрузки задач.
      * @param id идентификатор тега
+     * @param request запрос (заголовок If-None-Match)
      * @return ответ-сущность со статусом обработки и соответствующим сообщением
      */
     @Operation(summary = "Получить тег по ID",
-            description = "Возвращает тег со списком связанных задач",
+            description = "Возвращает тег со списком связанных задач. Поддерживает If-None-Match",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Тег найден"),
+                    @ApiResponse(responseCode = "304", description = "Тег и его задачи не изменились"),
                     @ApiResponse(responseCode = "404", description = "Тег не найден")
             })
     @GetMapping("/{id}")
-    public ResponseEntity<TagModel> getAllTasks(@PathVariable("id") Long id) {
-        return new ResponseEntity<>(tagService.getAllTaskByTag(id), HttpStatus.OK);
+    public ResponseEntity<TagModel> getAllTasks(@PathVariable("id") Long id, WebRequest request) {
+        String etag = etag(tagService.getTagVersion(id));
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(tagService.getAllTaskByTag(id));
     }
 
     /**
@@ -94,19 +159,26 @@ public class TagController {
 
     /**
      * Получает тег с отсортированными по приоритету задачами.
+     * Если версия тега и реестра типов совпадает с If-None-Match, отвечает 304 без загрузки задач.
      *
      * @param id идентификатор тега
+     * @param request запрос (заголовок If-None-Match)
      * @return тег с отсортированными задачами
      */
     @Operation(summary = "Получить тег с задачами (отсортированными)",
-            description = "Возвращает тег с задачами, отсортированными по приоритету",
+            description = "Возвращает тег с задачами, отсортированными по приоритету. Поддерживает If-None-Match",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Успешный запрос"),
+                    @ApiResponse(responseCode = "304", description = "Тег, его задачи и типы не изменились"),
                     @ApiResponse(responseCode = "404", description = "Тег не найден")
             })
     @GetMapping("/{id}/with-tasks")
-    public ResponseEntity<TagWithTask> getTagWithTasks(@PathVariable Long id) {
-        return ResponseEntity.ok(tagService.getTagWithSortedTasks(id));
+    public ResponseEntity<TagWithTask> getTagWithTasks(@PathVariable Long id, WebRequest request) {
+        String etag = etag(tagService.getTagWithSortedTasksVersion(id));
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(tagService.getTagWithSortedTasks(id));
     }
 
 
@@ -116,7 +188,9 @@ public class TagController {
      * @return список тегов с задачами
      */
     @Operation(summary = "Получить все теги с задачами",
-            description = "Возвращает список тегов, у которых есть хотя бы одна задача",
+            description = "Возвращает список тегов, у которых есть хотя бы одна задача. " +
+                    "Устарел: используйте постраничную сводку /api/tags/summary",
+            deprecated = true,
             responses = {
                     @ApiResponse(responseCode = "200", description = "Успешный запрос")
             })
@@ -125,4 +199,29 @@ public class TagController {
         return ResponseEntity.ok(tagService.getTagsWithTasks());
     }
 
+    /**
+     * Получает страницу сводок по тегам, у которых есть задачи.
+     *
+     * @param page номер страницы (по умолчанию 0)
+     * @param size размер страницы (по умолчанию 20)
+     * @return страница сводок: количество задач, диапазон дат и количество задач по типам
+     */
+    @Operation(summary = "Сводка по тегам",
+            description = "Возвращает страницу тегов с задачами (по возрастанию id): количество задач, " +
+                    "даты самой ранней и самой поздней задачи и количество задач по id типа. " +
+                    "Агрегаты считаются в базе данных, задачи не загружаются",
+            responses = @ApiResponse(responseCode = "200", description = "Успешный запрос"))
+    @GetMapping("/summary")
+    public ResponseEntity<Page<TagSummary>> getTagSummaries(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(tagService.getTagSummaries(PageRequest.of(page, size)));
+    }
+
+    /**
+     * Слабый ETag по версии представления (содержимое одинаково при любом сжатии ответа)
+     */
+    private static String etag(String version) {
+        return "W/\"" + version + "\"";
+    }
 }
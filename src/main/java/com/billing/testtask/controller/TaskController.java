@@ -1,13 +1,24 @@
 package com.billing.testtask.controller;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import com.billing.testtask.dto.AttachmentInfo;
+import com.billing.testtask.dto.CursorPage;
+import com.billing.testtask.dto.DayTasks;
 import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.dto.TaskBatchResult;
+import com.billing.testtask.dto.TaskCursorSort;
+import com.billing.testtask.dto.TaskIngestStatus;
+import com.billing.testtask.dto.TaskSearchQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,12 +26,20 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.service.AttachmentService;
+import com.billing.testtask.service.TaskIngestService;
 import com.billing.testtask.service.impl.TaskServiceImpl;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -34,8 +53,17 @@ public class TaskController {
     @Autowired
     private TaskServiceImpl taskService;
 
-    @Value("${upload.path}")
-    private String uploadPath;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private TaskIngestService taskIngestService;
+
+    @Value("${task.batch.max-size:10000}")
+    private int maxBatchSize;
 
     /**
      * Получает список всех задач.
@@ -50,6 +78,39 @@ public class TaskController {
         return new ResponseEntity<>(taskService.getAllTasks(), HttpStatus.OK);
     }
 
+    /**
+     * Потоково выгружает все задачи в формате NDJSON.
+     * Задачи пишутся в ответ по мере чтения из базы, поэтому память не растет с количеством задач.
+     *
+     * @param response HTTP-ответ, в который пишутся задачи
+     * @throws IOException при ошибках записи в ответ
+     */
+    @Operation(summary = "Потоковая выгрузка всех задач",
+            description = "Возвращает все задачи в формате NDJSON (по одной задаче на строку) при Accept: " +
+                    MediaType.APPLICATION_NDJSON_VALUE,
+            responses = @ApiResponse(responseCode = "200", description = "Успешный запрос"))
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamAllTasks(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        ObjectWriter writer = objectMapper.writerFor(TaskModel.class);
+        OutputStream out = response.getOutputStream();
+        try {
+            taskService.streamAllTasks(task -> {
+                try {
+                    out.write(writer.writeValueAsBytes(task));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
     /**
      * Получает страницу с задачами.
      *
@@ -67,6 +128,61 @@ public class TaskController {
         return ResponseEntity.ok(taskService.getAllTasks(PageRequest.of(page, size)));
     }
 
+    /**
+     * Получает порцию задач с курсорной (keyset) пагинацией.
+     *
+     * @param cursor курсор из предыдущего ответа (без курсора - первая порция)
+     * @param size размер порции (по умолчанию 10, не больше task.cursor.max-size)
+     * @param sort порядок обхода: ID или DATE (по умолчанию ID; задачи без даты - в конце)
+     * @return порция задач и курсор следующей порции
+     */
+    @Operation(summary = "Курсорная пагинация задач",
+            description = "Возвращает порцию задач после переданного курсора. Не выполняет подсчет общего количества, " +
+                    "поэтому время ответа не зависит от глубины страницы",
+            responses = @ApiResponse(responseCode = "200", description = "Успешный запрос"))
+    @GetMapping("/pagination/cursor")
+    public ResponseEntity<CursorPage<TaskModel>> getTasksByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "ID") TaskCursorSort sort) {
+        return ResponseEntity.ok(taskService.getAllTasks(cursor, size, sort));
+    }
+
+    /**
+     * Полнотекстовый поиск задач.
+     *
+     * @param q      искомый текст (слова ищутся в названии и описании с учетом словоформ)
+     * @param tagId  фильтр по тегу
+     * @param typeId фильтр по типу
+     * @param from   начальная дата задачи (включительно)
+     * @param to     конечная дата задачи (включительно)
+     * @param page   номер страницы (по умолчанию 0)
+     * @param size   размер страницы (по умолчанию 10)
+     * @return страница задач в порядке убывания релевантности
+     */
+    @Operation(summary = "Поиск задач по тексту",
+            description = "Ищет задачи, в названии или описании которых есть все слова запроса (русский и английский, " +
+                    "с учетом словоформ). Совпадения в названии ранжируются выше",
+            responses = @ApiResponse(responseCode = "200", description = "Успешный запрос"))
+    @GetMapping("/search")
+    public ResponseEntity<Page<TaskModel>> searchTasks(
+            @RequestParam("q") String q,
+            @RequestParam(required = false) Long tagId,
+            @RequestParam(required = false) Long typeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        TaskSearchQuery query = TaskSearchQuery.builder()
+                .text(q)
+                .tagId(tagId)
+                .typeId(typeId)
+                .from(from)
+                .to(to)
+                .build();
+        return ResponseEntity.ok(taskService.searchTasks(query, PageRequest.of(page, size)));
+    }
+
     /**
      * Создает или редактирует задачу.
      *
@@ -93,6 +209,107 @@ public class TaskController {
             return new ResponseEntity<>(taskService.save(taskModel), HttpStatus.CREATED);
     }
 
+    /**
+     * Принимает задачу на асинхронное создание.
+     *
+     * @param taskModel данные новой задачи
+     * @param bindingResult результат валидации
+     * @return зарезервированный идентификатор задачи и ссылка на ее состояние
+     */
+    @Operation(summary = "Асинхронно создать задачу",
+            description = "Проверяет задачу, резервирует идентификатор и ставит задачу в очередь записи. " +
+                    "Задачи из очереди записываются в базу группами; состояние - GET /api/tasks/ingest/{id}",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Задача принята, идентификатор зарезервирован"),
+                    @ApiResponse(responseCode = "404", description = "Тег или тип не найден"),
+                    @ApiResponse(responseCode = "503", description = "Очередь записи заполнена, повторите позже (Retry-After)")
+            })
+    @PostMapping(value = "/ingest",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> ingestTask(
+            @RequestBody @Valid TaskModel taskModel,
+            BindingResult bindingResult
+    ) {
+        if (bindingResult.hasErrors()) {
+            return new ResponseEntity<>(bindingResult.getAllErrors().toString(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        return taskIngestService.submit(taskModel)
+                .<ResponseEntity<?>>map(id -> ResponseEntity.accepted()
+                        .location(URI.create("/api/tasks/ingest/" + id))
+                        .body(TaskIngestStatus.builder().id(id).status(TaskIngestStatus.Status.QUEUED).build()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body("Очередь записи задач заполнена"));
+    }
+
+    /**
+     * Состояние задачи, принятой на асинхронное создание.
+     *
+     * @param id зарезервированный идентификатор задачи
+     * @return состояние: QUEUED, CREATED или FAILED (с причиной)
+     */
+    @Operation(summary = "Состояние асинхронно создаваемой задачи",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Состояние задачи"),
+                    @ApiResponse(responseCode = "404", description = "Задача с таким идентификатором не принималась")
+            })
+    @GetMapping("/ingest/{id}")
+    public ResponseEntity<TaskIngestStatus> getIngestStatus(@PathVariable("id") Long id) {
+        return ResponseEntity.of(taskIngestService.getStatus(id));
+    }
+
+    /**
+     * Создает пакет задач из JSON-массива.
+     *
+     * @param tasks модели новых задач
+     * @return результат по каждой строке пакета
+     */
+    @Operation(summary = "Пакетное создание задач",
+            description = "Создает задачи из JSON-массива. Некорректные строки отклоняются, " +
+                    "остальные сохраняются пакетами JDBC",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Пакет обработан, результат по каждой строке"),
+                    @ApiResponse(responseCode = "500", description = "Пакет пуст или слишком велик")
+            })
+    @PostMapping(value = "/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<TaskBatchResult>> createTasks(@RequestBody List<TaskModel> tasks) {
+        return ResponseEntity.ok(taskService.saveAll(tasks));
+    }
+
+    /**
+     * Создает пакет задач из потока NDJSON (по одной задаче на строку).
+     *
+     * @param request HTTP-запрос с телом в формате NDJSON
+     * @return результат по каждой строке пакета
+     * @throws IOException при ошибках чтения тела запроса
+     */
+    @Operation(summary = "Пакетное создание задач из NDJSON",
+            description = "Создает задачи из потока NDJSON (по одной задаче на строку)",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Пакет обработан, результат по каждой строке"),
+                    @ApiResponse(responseCode = "500", description = "Пакет пуст, слишком велик или некорректен")
+            })
+    @PostMapping(value = "/batch",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<TaskBatchResult>> createTasksFromStream(HttpServletRequest request) throws IOException {
+        // Строки читаются по одной: пакет больше допустимого отклоняется, не дочитывая тело запроса в память
+        List<TaskModel> tasks = new ArrayList<>();
+        try (MappingIterator<TaskModel> iterator = objectMapper.readerFor(TaskModel.class)
+                .readValues(request.getInputStream())) {
+            while (iterator.hasNextValue()) {
+                if (tasks.size() == maxBatchSize) {
+                    throw new IllegalArgumentException("Пакет превышает допустимый размер " + maxBatchSize);
+                }
+                tasks.add(iterator.nextValue());
+            }
+        }
+        return ResponseEntity.ok(taskService.saveAll(tasks));
+    }
+
     /**
      * Удаляет задачу по идентификатору.
      *
@@ -127,6 +344,71 @@ public class TaskController {
         return new ResponseEntity<>(tasks, HttpStatus.OK);
     }
 
+    /**
+     * Получает k самых срочных задач начиная с сегодняшнего дня.
+     *
+     * @param k количество задач
+     * @return задачи по убыванию приоритета типа, при равном приоритете - по дате
+     */
+    @Operation(summary = "Получить самые срочные задачи",
+            description = "Возвращает k задач начиная с сегодняшнего дня по всем датам, отсортированных " +
+                    "по убыванию приоритета типа, затем по дате. Читается не больше k задач на тип",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Успешный запрос"),
+                    @ApiResponse(responseCode = "500", description = "k вне допустимого диапазона")
+            })
+    @GetMapping("/top")
+    public ResponseEntity<List<GetTaskInfo>> getTopTasks(@RequestParam(defaultValue = "10") int k) {
+        return new ResponseEntity<>(taskService.getTopTasks(k), HttpStatus.OK);
+    }
+
+    /**
+     * Потоково выгружает задачи за диапазон дат, сгруппированные по дням.
+     * Дни пишутся в ответ по мере чтения из базы: в памяти держится только текущий день.
+     *
+     * @param from        первый день (включительно)
+     * @param to          последний день (включительно)
+     * @param perDayLimit максимум задач на день (по умолчанию без ограничения)
+     * @param response    HTTP-ответ, в который пишется JSON-массив дней
+     * @throws IOException при ошибках записи в ответ
+     */
+    @Operation(summary = "Получить задачи за диапазон дат",
+            description = "Возвращает JSON-массив дней [{date, tasks}] в порядке дат, задачи дня отсортированы " +
+                    "по приоритету типа. Дни без задач пропускаются. Все дни читаются одним запросом",
+            responses = @ApiResponse(responseCode = "200", description = "Успешный запрос"))
+    @GetMapping(value = "/range", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getTasksByDateRange(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer perDayLimit,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        ObjectWriter writer = objectMapper.writerFor(DayTasks.class);
+        OutputStream out = response.getOutputStream();
+        // Скобка массива пишется с первым днем: ошибка проверки параметров еще может вернуть обычный ответ об ошибке
+        boolean[] first = {true};
+        try {
+            taskService.streamTasksByDateRange(from, to, perDayLimit, day -> {
+                try {
+                    out.write(first[0] ? '[' : ',');
+                    first[0] = false;
+                    out.write(writer.writeValueAsBytes(day));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (first[0]) {
+            out.write('[');
+        }
+        out.write(']');
+        out.flush();
+    }
+
     /**
      * Загружает файл для задачи.
      *
@@ -139,6 +421,7 @@ public class TaskController {
             description = "Загружает файл-вложение для указанной задачи",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Файл успешно загружен"),
+                    @ApiResponse(responseCode = "404", description = "Задача не найдена"),
                     @ApiResponse(responseCode = "500", description = "Файл не предоставлен.Ошибка сервера")
             })
     @PostMapping("/{id}/upload")
@@ -147,13 +430,8 @@ public class TaskController {
             @RequestParam("file") MultipartFile file
     ) throws IOException {
         if (file != null) {
-            File uploadDir = new File(uploadPath);
-            if (!uploadDir.exists())
-                uploadDir.mkdir();
-
-            String filename = "task-" + id + "." + file.getOriginalFilename();
-            file.transferTo(new File(uploadDir.getAbsolutePath() + "/" + filename));
-            return new ResponseEntity<>("File " + filename + " was upload!", HttpStatus.OK);
+            AttachmentInfo info = attachmentService.store(id, file.getOriginalFilename(), file.getInputStream(), file.getSize());
+            return new ResponseEntity<>("File " + info.getName() + " was upload!", HttpStatus.OK);
         } else
             return new ResponseEntity<>("File for upload not found!", HttpStatus.INTERNAL_SERVER_ERROR);
     }
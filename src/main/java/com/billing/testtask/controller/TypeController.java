@@ -1,22 +1,31 @@
 package com.billing.testtask.controller;
 
+import com.billing.testtask.dto.EncodedResponse;
 import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.model.TypeModel;
 import com.billing.testtask.service.TypeService;
+import com.billing.testtask.service.impl.TypeResponseCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 /**
  * REST контроллер для управления типами задач.
  * Предоставляет операции для работы с типами задач, включая их получение с различными параметрами сортировки.
+ * Типы читаются из реестра в памяти; создание, изменение и удаление публикуют новый снимок реестра.
  */
 @RestController
 @RequestMapping("api/types")
@@ -25,20 +34,89 @@ import java.util.List;
 public class TypeController {
 
     private final TypeService typeService;
+    private final TypeResponseCache typeResponseCache;
 
     /**
      * Получает список всех типов задач с возможностью сортировки по приоритету.
+     * Ответ берется готовым из {@link TypeResponseCache} в кодировке, выбранной по Accept-Encoding.
      *
      * @param ascending флаг сортировки по возрастанию (true - по возрастанию, false - по убыванию)
-     * @return список типов задач
+     * @param acceptEncoding заголовок Accept-Encoding
+     * @param request   запрос (заголовок If-None-Match)
+     * @return список типов задач или 304, если версия списка не изменилась
      */
     @Operation(summary = "Получить все типы",
-            description = "Возвращает список всех типов задач с возможностью сортировки по приоритету",
-            responses = @ApiResponse(responseCode = "200", description = "Успешный запрос"))
+            description = "Возвращает список всех типов задач с возможностью сортировки по приоритету. " +
+                    "Поддерживает If-None-Match и сжатие br/gzip",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Успешный запрос",
+                            content = @Content(array = @ArraySchema(schema = @Schema(implementation = TypeEntity.class)))),
+                    @ApiResponse(responseCode = "304", description = "Список типов не изменился")
+            })
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<TypeEntity> getAllTypes(
+    public ResponseEntity<byte[]> getAllTypes(
             @Parameter(description = "Сортировка по возрастанию приоритета", example = "true")
-            @RequestParam(defaultValue = "true") boolean ascending) {
-        return typeService.getAllTypes(ascending);
+            @RequestParam(defaultValue = "true") boolean ascending,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        EncodedResponse types = typeResponseCache.get(ascending);
+        if (request.checkNotModified(types.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(types.getEtag()).build();
+        }
+        TypeResponseCache.ContentCoding coding = TypeResponseCache.negotiate(acceptEncoding, types);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(types.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (coding != TypeResponseCache.ContentCoding.IDENTITY) {
+            response.header(HttpHeaders.CONTENT_ENCODING, coding.getToken());
+        }
+        return response.body(TypeResponseCache.body(types, coding));
     }
-}
\ No newline at end of file
+
+    /**
+     * Создает новый тип задачи или обновляет существующий.
+     *
+     * @param typeModel данные типа
+     * @param bindingResult результат валидации
+     * @return созданный/обновленный тип
+     */
+    @Operation(summary = "Создать или обновить тип",
+            description = "Создает новый тип задачи или обновляет существующий. Для создания id должен отсутствовать, " +
+                    "для обновления - должен присутствовать.",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Тип успешно создан/обновлен"),
+                    @ApiResponse(responseCode = "404", description = "Тип не найден"),
+                    @ApiResponse(responseCode = "500", description = "Ошибка сервера.")
+            })
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> createType(
+            @RequestBody @Valid TypeModel typeModel,
+            BindingResult bindingResult
+    ) {
+        if (bindingResult.hasErrors())
+            return new ResponseEntity<>(bindingResult.getAllErrors().toString(), HttpStatus.INTERNAL_SERVER_ERROR);
+        else
+            return new ResponseEntity<>(typeService.save(typeModel), HttpStatus.CREATED);
+    }
+
+    /**
+     * Удаляет тип задачи по идентификатору.
+     *
+     * @param id идентификатор типа
+     * @return сообщение об успешном удалении
+     */
+    @Operation(summary = "Удалить тип",
+            description = "Удаляет тип задачи по ID, если он не используется задачами",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Тип успешно удален"),
+                    @ApiResponse(responseCode = "404", description = "Тип не найден"),
+                    @ApiResponse(responseCode = "500", description = "Тип используется задачами")
+            })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<String> deleteType(@PathVariable("id") Long id) {
+        typeService.delete(id);
+        return new ResponseEntity<>("Тип с ID " + id + " был удален", HttpStatus.OK);
+    }
+}
@@ -0,0 +1,27 @@
+package com.billing.testtask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Файл вложения, готовый к отдаче клиенту
+ */
+@Getter
+@AllArgsConstructor
+public class AttachmentFile {
+    /**
+     * Путь к файлу на диске
+     */
+    private final Path path;
+
+    private final long size;
+
+    private final long lastModified;
+
+    /**
+     * Строгий ETag (в кавычках), меняется при перезаписи вложения
+     */
+    private final String etag;
+}
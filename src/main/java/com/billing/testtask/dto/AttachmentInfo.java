@@ -0,0 +1,30 @@
+package com.billing.testtask.dto;
+
+import lombok.*;
+
+/**
+ * Сведения о сохраненном вложении задачи
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentInfo {
+    private Long taskId;
+
+    /**
+     * Имя файла вложения
+     */
+    private String name;
+
+    /**
+     * Размер в байтах
+     */
+    private long size;
+
+    /**
+     * Контрольная сумма SHA-256 (hex)
+     */
+    private String sha256;
+}
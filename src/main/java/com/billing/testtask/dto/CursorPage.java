@@ -0,0 +1,28 @@
+package com.billing.testtask.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Порция данных при курсорной (keyset) пагинации.
+ * В отличие от страницы не содержит общего количества элементов,
+ * поэтому не требует запроса count(*).
+ *
+ * @param <T> тип элементов
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+
+    /**
+     * Непрозрачный курсор для получения следующей порции (null, если данных больше нет)
+     */
+    private String nextCursor;
+
+    private boolean hasNext;
+}
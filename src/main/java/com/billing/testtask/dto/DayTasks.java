@@ -0,0 +1,21 @@
+package com.billing.testtask.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Задачи одного дня, отсортированные по убыванию приоритета типа
+ */
+@Getter
+@AllArgsConstructor
+public class DayTasks {
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private final LocalDate date;
+
+    private final List<GetTaskInfo> tasks;
+}
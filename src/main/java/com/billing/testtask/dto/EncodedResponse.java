@@ -0,0 +1,31 @@
+package com.billing.testtask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Заранее сериализованный ответ в нескольких кодировках содержимого
+ */
+@Getter
+@AllArgsConstructor
+public class EncodedResponse {
+    /**
+     * Слабый ETag (одинаков для всех кодировок)
+     */
+    private final String etag;
+
+    /**
+     * Тело без сжатия
+     */
+    private final byte[] identity;
+
+    /**
+     * Тело, сжатое gzip (null, если сжатие не уменьшает размер)
+     */
+    private final byte[] gzip;
+
+    /**
+     * Тело, сжатое Brotli (null, если Brotli недоступен или не уменьшает размер)
+     */
+    private final byte[] brotli;
+}
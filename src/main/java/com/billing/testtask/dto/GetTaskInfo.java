@@ -1,14 +1,14 @@
 package com.billing.testtask.dto;
 
-import lombok.Builder;
-import lombok.Getter;
-import lombok.Setter;
+import lombok.*;
 
 import java.time.LocalDate;
 
 @Getter
 @Setter
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class GetTaskInfo {
     private Long id;
     private String name;
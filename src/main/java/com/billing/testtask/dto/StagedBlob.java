@@ -0,0 +1,25 @@
+package com.billing.testtask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Содержимое, записанное во временный файл хранилища, но еще не помещенное в него
+ */
+@Getter
+@AllArgsConstructor
+public class StagedBlob {
+    /**
+     * Временный файл
+     */
+    private final Path tempFile;
+
+    /**
+     * Контрольная сумма SHA-256 (hex)
+     */
+    private final String sha256;
+
+    private final long size;
+}
@@ -0,0 +1,49 @@
+package com.billing.testtask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Сводка по тегу: количество задач, диапазон дат и количество задач по типам
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagSummary {
+    private Long id;
+    private String title;
+    private long taskCount;
+
+    /**
+     * Дата самой ранней задачи тега
+     */
+    private LocalDate firstTaskDate;
+
+    /**
+     * Дата самой поздней задачи тега
+     */
+    private LocalDate lastTaskDate;
+
+    /**
+     * Количество задач по идентификатору типа
+     */
+    private Map<Long, Long> tasksByType;
+
+    /**
+     * Конструктор для выборки тегов в запросе (агрегаты заполняются отдельно)
+     */
+    public TagSummary(Long id, String title) {
+        this.id = id;
+        this.title = title;
+        this.tasksByType = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,20 @@
+package com.billing.testtask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Строка тега с задачей (LEFT JOIN тег - задачи): у тега без задач одна строка с пустыми полями задачи
+ */
+@Getter
+@AllArgsConstructor
+public class TagTaskRow {
+    private final String tagTitle;
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final LocalDate taskDate;
+    private final Long typeId;
+}
@@ -0,0 +1,19 @@
+package com.billing.testtask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Агрегаты задач одного типа в теге (строка GROUP BY тег, тип)
+ */
+@Getter
+@AllArgsConstructor
+public class TagTypeStats {
+    private final Long tagId;
+    private final Long typeId;
+    private final long count;
+    private final LocalDate firstTaskDate;
+    private final LocalDate lastTaskDate;
+}
@@ -0,0 +1,35 @@
+package com.billing.testtask.dto;
+
+import lombok.*;
+
+/**
+ * Результат обработки одной строки пакетного создания задач
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskBatchResult {
+    /**
+     * Порядковый номер строки в запросе (с нуля)
+     */
+    private int index;
+
+    /**
+     * Идентификатор созданной задачи (null, если строка отклонена)
+     */
+    private Long id;
+
+    private Status status;
+
+    /**
+     * Причина отклонения строки
+     */
+    private String error;
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+}
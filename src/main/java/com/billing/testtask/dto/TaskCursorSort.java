@@ -0,0 +1,16 @@
+package com.billing.testtask.dto;
+
+/**
+ * Порядок обхода задач при курсорной пагинации
+ */
+public enum TaskCursorSort {
+    /**
+     * По идентификатору задачи
+     */
+    ID,
+
+    /**
+     * По дате задачи, при равенстве дат - по идентификатору; задачи без даты - в конце
+     */
+    DATE
+}
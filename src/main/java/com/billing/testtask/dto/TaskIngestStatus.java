@@ -0,0 +1,31 @@
+package com.billing.testtask.dto;
+
+import lombok.*;
+
+/**
+ * Состояние задачи, принятой на асинхронную запись
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskIngestStatus {
+    /**
+     * Зарезервированный идентификатор задачи
+     */
+    private Long id;
+
+    private Status status;
+
+    /**
+     * Причина ошибки записи
+     */
+    private String error;
+
+    public enum Status {
+        QUEUED,
+        CREATED,
+        FAILED
+    }
+}
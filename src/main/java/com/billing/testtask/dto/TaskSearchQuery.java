@@ -0,0 +1,30 @@
+package com.billing.testtask.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Параметры полнотекстового поиска задач: текст и необязательные фильтры
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class TaskSearchQuery {
+
+    /**
+     * Искомый текст (ищется в названии и описании)
+     */
+    private final String text;
+
+    private final Long tagId;
+    private final Long typeId;
+
+    /**
+     * Диапазон дат задачи (границы включаются)
+     */
+    private final LocalDate from;
+    private final LocalDate to;
+}
@@ -0,0 +1,31 @@
+package com.billing.testtask.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Согласованный снимок реестра типов: версия и оба порядка сортировки взяты из одного снимка
+ */
+@Value
+public class TypeCatalog {
+    /**
+     * Номер снимка в процессе: растет при каждом перечитывании реестра, больший номер - более новый снимок
+     */
+    long generation;
+
+    /**
+     * Версия снимка для условных запросов
+     */
+    String version;
+
+    /**
+     * Типы по возрастанию приоритета
+     */
+    List<TypeInfo> ascending;
+
+    /**
+     * Типы по убыванию приоритета
+     */
+    List<TypeInfo> descending;
+}
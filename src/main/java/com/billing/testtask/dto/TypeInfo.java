@@ -0,0 +1,13 @@
+package com.billing.testtask.dto;
+
+import lombok.Value;
+
+/**
+ * Неизменяемое описание типа задачи в реестре типов
+ */
+@Value
+public class TypeInfo {
+    Long id;
+    String title;
+    Integer level;
+}
@@ -0,0 +1,43 @@
+package com.billing.testtask.entity;
+
+import lombok.*;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.time.LocalDateTime;
+
+/**
+ * Сущность, описывающая содержимое вложения (файл в хранилище по SHA-256). Связана с таблицей attachment_blob
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "attachment_blob")
+public class AttachmentBlobEntity {
+    /**
+     * Контрольная сумма SHA-256 содержимого (hex)
+     */
+    @Id
+    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
+    /**
+     * Размер в байтах
+     */
+    @Column(name = "size")
+    private long size;
+
+    /**
+     * Число вложений, ссылающихся на содержимое
+     */
+    @Column(name = "ref_count")
+    private int refCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,50 @@
+package com.billing.testtask.entity;
+
+import lombok.*;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.time.LocalDateTime;
+
+/**
+ * Сущность, описывающая вложение задачи. Связана с таблицей attachment
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Entity
+@Table(name = "attachment")
+public class AttachmentEntity {
+    /**
+     * Идентификатор вложения
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attachment_id_seq")
+    @SequenceGenerator(name = "attachment_id_seq", sequenceName = "attachment_id_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * Идентификатор задачи
+     */
+    @Column(name = "task_id")
+    private Long taskId;
+
+    /**
+     * Имя файла вложения (уникально в пределах задачи)
+     */
+    @Column(name = "name")
+    private String name;
+
+    /**
+     * Содержимое вложения
+     */
+    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
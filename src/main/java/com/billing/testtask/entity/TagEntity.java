@@ -3,12 +3,15 @@ import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import jakarta.persistence.*;
 import java.util.List;
 
 /**
- * Сущность, описывающая тег. Связана с одноименной таблицей
+ * Сущность, описывающая тег. Связана с одноименной таблицей,
+ * хранится в кэше второго уровня (регион tag)
  */
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,6 +20,8 @@ import java.util.List;
 @Builder
 @Entity
 @Table(name = "tag")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tag")
 @JsonIdentityInfo(
         generator = ObjectIdGenerators.PropertyGenerator.class,
         property = "id")
@@ -25,7 +30,8 @@ public class TagEntity {
      * Идентификатор тега
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tag_id_seq")
+    @SequenceGenerator(name = "tag_id_seq", sequenceName = "tag_id_seq", allocationSize = 50)
     Long id;
 
 
@@ -35,6 +41,14 @@ public class TagEntity {
     @Column(name = "title")
     private String title;
 
+    /**
+     * Версия строки (оптимистическая блокировка)
+     */
+    @Version
+    @Column(name = "version")
+    @JsonIgnore
+    private Long version;
+
     /**
      * Связь с таблицей задач в отношении один ко многим
      */
@@ -25,7 +25,8 @@ public class TaskEntity {
      * Идентификатор задачи
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_id_seq")
+    @SequenceGenerator(name = "task_id_seq", sequenceName = "task_id_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -60,4 +61,12 @@ public class TaskEntity {
     @ManyToOne
     @JoinColumn(name = "uid_type", nullable = false, foreignKey = @ForeignKey(name = "fk_task_typeuid"))
     private TypeEntity type;
+
+    /**
+     * Версия строки (оптимистическая блокировка)
+     */
+    @Version
+    @Column(name = "version")
+    @JsonIgnore
+    private Long version;
 }
\ No newline at end of file
@@ -4,12 +4,15 @@ import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import jakarta.persistence.*;
 import java.util.List;
 
 /**
- * Сущность, описывающая тип. Связана с одноименной таблицей
+ * Сущность, описывающая тип. Связана с одноименной таблицей,
+ * хранится в кэше второго уровня (регион type)
  */
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,6 +21,8 @@ import java.util.List;
 @Builder
 @Entity
 @Table(name = "type")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "type")
 @JsonIdentityInfo(
         generator = ObjectIdGenerators.PropertyGenerator.class,
         property = "id")
@@ -26,7 +31,8 @@ public class TypeEntity {
      * Идентификатор тега
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "type_id_seq")
+    @SequenceGenerator(name = "type_id_seq", sequenceName = "type_id_seq", allocationSize = 50)
     Long id;
 
     /**
@@ -41,6 +47,14 @@ public class TypeEntity {
     @Column(name = "level")
     private Integer level;
 
+    /**
+     * Версия строки (оптимистическая блокировка)
+     */
+    @Version
+    @Column(name = "version")
+    @JsonIgnore
+    private Long version;
+
     /**
      * Связь с таблицей задач в отношении один ко многим
      */
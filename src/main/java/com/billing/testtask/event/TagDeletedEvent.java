@@ -0,0 +1,13 @@
+package com.billing.testtask.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Событие удаления тега вместе со всеми его задачами
+ */
+@Getter
+@AllArgsConstructor
+public class TagDeletedEvent {
+    private final Long tagId;
+}
@@ -0,0 +1,32 @@
+package com.billing.testtask.event;
+
+import com.billing.testtask.model.TaskModel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Событие изменения задачи.
+ * Публикуется сервисом задач при создании, изменении и удалении задачи;
+ * производные представления (индексы, кэши) обновляются по нему после фиксации транзакции.
+ */
+@Getter
+@AllArgsConstructor
+public class TaskChangedEvent {
+    /**
+     * Состояние задачи до изменения (null при создании)
+     */
+    private final TaskModel previous;
+
+    /**
+     * Состояние задачи после изменения (null при удалении)
+     */
+    private final TaskModel current;
+
+    public static TaskChangedEvent created(TaskModel current) {
+        return new TaskChangedEvent(null, current);
+    }
+
+    public static TaskChangedEvent deleted(TaskModel previous) {
+        return new TaskChangedEvent(previous, null);
+    }
+}
@@ -0,0 +1,21 @@
+package com.billing.testtask.event;
+
+import com.billing.testtask.model.TaskModel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Событие пакетного создания задач.
+ * Публикуется одно на пакет вместо {@link TaskChangedEvent} на каждую задачу, чтобы производные представления
+ * применяли пакет за один проход: каждый день повестки пересортировывается один раз, поисковик обновляется один раз.
+ */
+@Getter
+@AllArgsConstructor
+public class TasksCreatedEvent {
+    /**
+     * Созданные задачи
+     */
+    private final List<TaskModel> tasks;
+}
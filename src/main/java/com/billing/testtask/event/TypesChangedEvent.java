@@ -0,0 +1,7 @@
+package com.billing.testtask.event;
+
+/**
+ * Событие публикации нового снимка реестра типов задач
+ */
+public class TypesChangedEvent {
+}
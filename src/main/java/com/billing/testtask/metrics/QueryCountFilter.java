@@ -0,0 +1,97 @@
+package com.billing.testtask.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Собирает статистику SQL-операторов на один запрос к API ({@link QueryStatistics}):
+ * <ul>
+ *     <li>количество операторов - метрика http.server.requests.queries,
+ *     суммарное время - http.server.requests.queries.time (теги method и uri, как у http.server.requests);</li>
+ *     <li>оператор, выполненный больше sql.n-plus-one-threshold раз, пишется в лог как возможный N+1
+ *     и учитывается в метрике http.server.requests.repeated.queries.</li>
+ * </ul>
+ * Статистика сохраняется в атрибуте запроса {@link #STATISTICS_ATTRIBUTE} (для проверок в тестах).
+ */
+@Slf4j
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    /**
+     * Атрибут запроса со статистикой SQL-операторов
+     */
+    public static final String STATISTICS_ATTRIBUTE = QueryStatistics.class.getName();
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sql.n-plus-one-threshold:10}")
+    private int repeatThreshold = 10;
+
+    @Autowired
+    public QueryCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryStatistics.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryStatistics statistics = QueryStatistics.stop();
+            request.setAttribute(STATISTICS_ATTRIBUTE, statistics);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder("http.server.requests.queries")
+                    .description("Количество SQL-запросов на один HTTP-запрос")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(statistics.getCount());
+            Timer.builder("http.server.requests.queries.time")
+                    .description("Суммарное время SQL-запросов одного HTTP-запроса")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(Duration.ofMillis(statistics.getElapsedMillis()));
+            reportRepeated(request.getMethod(), uri, statistics.getRepeated(repeatThreshold));
+        }
+    }
+
+    private void reportRepeated(String method, String uri, Map<String, Integer> repeated) {
+        repeated.forEach((sql, executions) -> log.warn("Возможный N+1 в {} {}: оператор выполнен {} раз: {}",
+                method, uri, executions, sql));
+        if (!repeated.isEmpty()) {
+            Counter.builder("http.server.requests.repeated.queries")
+                    .description("HTTP-запросы, в которых один SQL-оператор выполнен больше sql.n-plus-one-threshold раз")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+}
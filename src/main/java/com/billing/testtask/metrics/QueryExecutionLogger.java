@@ -0,0 +1,42 @@
+package com.billing.testtask.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Слушатель прокси источника данных: учитывает каждый оператор в {@link QueryStatistics}
+ * и пишет в лог с параметрами только операторы, выполнявшиеся дольше порога.
+ */
+@Slf4j
+public class QueryExecutionLogger implements QueryExecutionListener {
+
+    private final long slowQueryMillis;
+    private final DefaultQueryLogEntryCreator entryCreator = new DefaultQueryLogEntryCreator();
+
+    /**
+     * @param slowQueryThreshold порог времени выполнения, начиная с которого оператор пишется в лог
+     */
+    public QueryExecutionLogger(Duration slowQueryThreshold) {
+        this.slowQueryMillis = slowQueryThreshold.toMillis();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        for (QueryInfo query : queryInfoList) {
+            QueryStatistics.record(query.getQuery(), execInfo.getElapsedTime());
+        }
+        if (execInfo.getElapsedTime() >= slowQueryMillis && log.isWarnEnabled()) {
+            log.warn("Медленный SQL-оператор: {}", entryCreator.getLogEntry(execInfo, queryInfoList, false, true, false));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.billing.testtask.metrics;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Статистика SQL-операторов в пределах одного запроса к API или участка кода между {@link #start()} и {@link #stop()}:
+ * количество выполнений, суммарное время и число выполнений каждого оператора.
+ * <p>
+ * Операторы записывает {@link QueryExecutionLogger} в потоке, который их выполняет. Участки могут быть вложены
+ * (например, тест вокруг запроса MockMvc): оператор учитывается во всех начатых в потоке участках.
+ */
+public class QueryStatistics {
+
+    private static final ThreadLocal<Deque<QueryStatistics>> ACTIVE = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private int count;
+    private long elapsedMillis;
+
+    /**
+     * Текст оператора → количество выполнений (в порядке первого выполнения)
+     */
+    private final Map<String, Integer> executions = new LinkedHashMap<>();
+
+    /**
+     * Начинает сбор статистики в текущем потоке.
+     *
+     * @return статистика, пополняемая до {@link #stop()}
+     */
+    public static QueryStatistics start() {
+        QueryStatistics statistics = new QueryStatistics();
+        ACTIVE.get().push(statistics);
+        return statistics;
+    }
+
+    /**
+     * Завершает последний начатый в текущем потоке сбор статистики.
+     *
+     * @return собранная статистика (пустая, если сбор не начат)
+     */
+    public static QueryStatistics stop() {
+        Deque<QueryStatistics> active = ACTIVE.get();
+        QueryStatistics statistics = active.poll();
+        if (active.isEmpty()) {
+            ACTIVE.remove();
+        }
+        return statistics != null ? statistics : new QueryStatistics();
+    }
+
+    /**
+     * Учитывает выполнение оператора во всех начатых в текущем потоке участках.
+     *
+     * @param sql           текст оператора (с параметрами-заполнителями)
+     * @param elapsedMillis время выполнения, мс
+     */
+    static void record(String sql, long elapsedMillis) {
+        Deque<QueryStatistics> active = ACTIVE.get();
+        if (active.isEmpty()) {
+            ACTIVE.remove();
+            return;
+        }
+        for (QueryStatistics statistics : active) {
+            statistics.count++;
+            statistics.elapsedMillis += elapsedMillis;
+            statistics.executions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Количество выполненных операторов (пакет подготовленного оператора JDBC - одно выполнение)
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Суммарное время выполнения операторов, мс
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Количество выполнений каждого оператора
+     */
+    public Map<String, Integer> getExecutions() {
+        return Collections.unmodifiableMap(executions);
+    }
+
+    /**
+     * Операторы, выполненные больше threshold раз - признак N+1 (например, отдельная загрузка
+     * связанной сущности для каждой строки результата).
+     *
+     * @param threshold допустимое количество выполнений одного оператора
+     * @return текст оператора → количество выполнений
+     */
+    public Map<String, Integer> getRepeated(int threshold) {
+        return executions.entrySet().stream()
+                .filter(entry -> entry.getValue() > threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+}
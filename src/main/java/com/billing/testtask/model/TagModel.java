@@ -1,5 +1,6 @@
 package com.billing.testtask.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import jakarta.validation.constraints.NotBlank;
@@ -22,5 +23,9 @@ public class TagModel {
     @Size(max = 255)
     private String title;
 
+    /**
+     * Задачи тега (не передаются в ответах, где список задач не запрашивался)
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<TaskModel> tasks = new ArrayList<>();
 }
@@ -4,6 +4,7 @@ package com.billing.testtask.model;
 import lombok.*;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,7 +24,7 @@ public class TypeModel {
     @Size(max = 255)
     private String title;
 
-    @NotBlank
+    @NotNull
     private Integer level;
     private List<TaskModel> tasks = new ArrayList<>();
 }
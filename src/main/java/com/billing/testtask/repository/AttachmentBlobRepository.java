@@ -0,0 +1,55 @@
+package com.billing.testtask.repository;
+
+import com.billing.testtask.entity.AttachmentBlobEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Репозиторий содержимого вложений.
+ * Счетчик ссылок меняется одним SQL-оператором, строка содержимого остается заблокированной
+ * до конца транзакции - это согласует загрузку одинаковых файлов с удалением неиспользуемого содержимого.
+ * Операторы синхронизируются только с таблицей attachment_blob и не сбрасывают кэш второго уровня.
+ */
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlobEntity, String> {
+
+    /**
+     * Добавляет ссылку на содержимое (создает запись содержимого при первой ссылке)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "attachment_blob"))
+    @Query(value = "INSERT INTO attachment_blob (sha256, size, ref_count, updated_at) VALUES (:sha256, :size, 1, now()) " +
+            "ON CONFLICT (sha256) DO UPDATE SET ref_count = attachment_blob.ref_count + 1, updated_at = now()",
+            nativeQuery = true)
+    void acquire(@Param("sha256") String sha256, @Param("size") long size);
+
+    /**
+     * Убирает ссылку на содержимое
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "attachment_blob"))
+    @Query(value = "UPDATE attachment_blob SET ref_count = ref_count - 1, updated_at = now() WHERE sha256 = :sha256",
+            nativeQuery = true)
+    void release(@Param("sha256") String sha256);
+
+    /**
+     * Блокирует содержимое до конца транзакции (рекомендательная блокировка по SHA-256: действует и тогда,
+     * когда строки содержимого еще или уже нет). Берется загрузкой перед добавлением ссылки
+     * и удалением содержимого перед удалением строки и файла
+     */
+    @Query(value = "SELECT count(*) FROM pg_advisory_xact_lock(hashtextextended(:sha256, 0))", nativeQuery = true)
+    long lockContent(@Param("sha256") String sha256);
+
+    /**
+     * Блокирует запись содержимого, на которое не осталось ссылок
+     */
+    @Query(value = "SELECT sha256 FROM attachment_blob WHERE sha256 = :sha256 AND ref_count <= 0 FOR UPDATE",
+            nativeQuery = true)
+    Optional<String> lockUnreferenced(@Param("sha256") String sha256);
+}
@@ -0,0 +1,30 @@
+package com.billing.testtask.repository;
+
+import com.billing.testtask.entity.AttachmentEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий вложений задач
+ */
+public interface AttachmentRepository extends JpaRepository<AttachmentEntity, Long> {
+
+    Optional<AttachmentEntity> findByTaskIdAndName(Long taskId, String name);
+
+    List<AttachmentEntity> findByTaskId(Long taskId);
+
+    /**
+     * Порция вложений задач, которых больше нет (например, удаленных вместе с тегом).
+     * Строки блокируются, уже заблокированные другой очисткой пропускаются.
+     * OFFSET 0 не дает планировщику превратить подзапрос в anti join с чтением всей таблицы task:
+     * задача каждого вложения проверяется по первичному ключу, и чтение прекращается на limit строках.
+     */
+    @Query(value = "SELECT a.* FROM attachment a WHERE NOT EXISTS (SELECT 1 FROM task t WHERE t.id = a.task_id OFFSET 0) " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<AttachmentEntity> lockOrphans(@Param("limit") int limit);
+}
@@ -1,13 +1,95 @@
 package com.billing.testtask.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import com.billing.testtask.dto.TagSummary;
+import com.billing.testtask.dto.TagTaskRow;
 import com.billing.testtask.entity.TagEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Репозиторий тегов.
+ * Сущности тегов хранятся в кэше второго уровня (регион tag). Операторы UPDATE и DELETE в JPQL
+ * сбрасывают регион автоматически; для SQL-операторов затронутые таблицы указываются подсказкой
+ * {@link HibernateHints#HINT_NATIVE_SPACES}, иначе Hibernate сбрасывает все регионы кэша.
+ */
 public interface TagRepository extends JpaRepository<TagEntity, Long> {
 
-    @Query("SELECT DISTINCT t FROM TagEntity t JOIN FETCH t.tasks WHERE t.tasks IS NOT EMPTY")
+    /**
+     * Теги, у которых есть хотя бы одна задача (задачи не загружаются)
+     */
+    @Query("SELECT t FROM TagEntity t WHERE EXISTS (SELECT 1 FROM TaskEntity k WHERE k.tag = t) ORDER BY t.id")
     List<TagEntity> findTagsWithTasks();
-}
\ No newline at end of file
+
+    /**
+     * Страница тегов, у которых есть задачи, для сводки (агрегаты задач выбираются отдельным запросом)
+     */
+    @Query(value = "SELECT new com.billing.testtask.dto.TagSummary(t.id, t.title) FROM TagEntity t " +
+            "WHERE EXISTS (SELECT 1 FROM TaskEntity k WHERE k.tag = t)",
+            countQuery = "SELECT count(t) FROM TagEntity t WHERE EXISTS (SELECT 1 FROM TaskEntity k WHERE k.tag = t)")
+    Page<TagSummary> findTagSummaries(Pageable pageable);
+
+    /**
+     * Заголовок тега без загрузки сущности
+     */
+    @Query("SELECT t.title FROM TagEntity t WHERE t.id = :id")
+    Optional<String> findTitleById(@Param("id") Long id);
+
+    /**
+     * Заголовок тега вместе с его задачами одним запросом, задачи - по возрастанию id
+     * (пустой список, если тега нет; у тега без задач - одна строка без задачи)
+     */
+    @Query("SELECT new com.billing.testtask.dto.TagTaskRow(g.title, t.id, t.name, t.description, t.taskDate, t.type.id) " +
+            "FROM TagEntity g LEFT JOIN TaskEntity t ON t.tag = g WHERE g.id = :id ORDER BY t.id")
+    List<TagTaskRow> findWithTaskRows(@Param("id") Long id);
+
+    /**
+     * Версия тега для условных запросов ("версия тега.отпечаток задач тега") без загрузки сущностей.
+     * Отпечаток - MD5 списка пар id:версия задач тега по возрастанию id, поэтому меняется при создании,
+     * изменении, удалении и переносе любой задачи тега без отдельного счетчика в строке тега
+     */
+    @Query(value = "SELECT g.version || '.' || coalesce(md5(string_agg(t.id || ':' || t.version, ',' ORDER BY t.id)), '0') " +
+            "FROM tag g LEFT JOIN task t ON t.uid_tag = g.id WHERE g.id = :id GROUP BY g.id, g.version",
+            nativeQuery = true)
+    Optional<String> findVersionById(@Param("id") Long id);
+
+    /**
+     * Переименовывает тег одним оператором UPDATE без загрузки сущности и задач
+     * (версия тега увеличивается, чтобы сменился ETag)
+     */
+    @Modifying
+    @Query("UPDATE TagEntity t SET t.title = :title, t.version = t.version + 1 WHERE t.id = :id")
+    int updateTitle(@Param("id") Long id, @Param("title") String title);
+
+    /**
+     * Переименовывает несколько тегов одним оператором UPDATE (пары id[i] → titles[i])
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tag"))
+    @Query(value = "UPDATE tag t SET title = v.title, version = t.version + 1 " +
+            "FROM unnest(CAST(:ids AS bigint[]), CAST(:titles AS varchar[])) AS v(id, title) WHERE t.id = v.id",
+            nativeQuery = true)
+    int updateTitles(@Param("ids") Long[] ids, @Param("titles") String[] titles);
+
+    /**
+     * Блокирует строку тега до конца транзакции: новые задачи тега ждут ее завершения
+     */
+    @Query(value = "SELECT id FROM tag WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    /**
+     * Удаляет тег одним оператором DELETE, минуя каскад на задачи
+     */
+    @Modifying
+    @Query("DELETE FROM TagEntity t WHERE t.id = :id")
+    int deleteTagById(@Param("id") Long id);
+}
@@ -1,25 +1,166 @@
 package com.billing.testtask.repository;
 
 
+import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.dto.TagTypeStats;
+import com.billing.testtask.model.TaskModel;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.billing.testtask.entity.TaskEntity;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * Репозиторий задач.
+ * Запросы на чтение списков выбирают колонки сразу в модели (TaskModel, GetTaskInfo),
+ * не создавая управляемых сущностей и не подгружая теги и типы отдельными запросами.
+ */
 @Repository
 public interface TaskRepository extends JpaRepository<TaskEntity, Long> {
-    @Query("SELECT t FROM TaskEntity t JOIN FETCH t.type WHERE t.taskDate = :date ORDER BY t.type.level DESC")
-    List<TaskEntity> findByTaskDateOrderByTypePriority(@Param("date") LocalDate date);
+    /**
+     * Задачи за дату с сортировкой по приоритету на стороне базы данных.
+     * Используется как эталон при проверке индекса задач по дням.
+     */
+    @Query("SELECT new com.billing.testtask.dto.GetTaskInfo(t.id, t.name, t.description, t.taskDate, ty.title) " +
+            "FROM TaskEntity t JOIN t.type ty WHERE t.taskDate = :date ORDER BY ty.level DESC, t.id")
+    List<GetTaskInfo> findByTaskDateOrderByTypePriority(@Param("date") LocalDate date);
+
+    /**
+     * Потоковое чтение задач за диапазон дат: по дням, внутри дня - по убыванию приоритета типа.
+     * Один проход по индексу (task_date, uid_type). Требует открытой транзакции.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.billing.testtask.dto.GetTaskInfo(t.id, t.name, t.description, t.taskDate, ty.title) " +
+            "FROM TaskEntity t JOIN t.type ty WHERE t.taskDate BETWEEN :from AND :to " +
+            "ORDER BY t.taskDate, ty.level DESC, t.id")
+    Stream<GetTaskInfo> streamByTaskDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * То же, но не больше limit задач с наибольшим приоритетом на день: лишние строки отсекает
+     * оконная функция row_number() в базе данных. Требует открытой транзакции.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.billing.testtask.dto.GetTaskInfo(r.id, r.name, r.description, r.taskDate, r.typeTitle) " +
+            "FROM (SELECT t.id AS id, t.name AS name, t.description AS description, t.taskDate AS taskDate, " +
+            "ty.title AS typeTitle, ty.level AS level, " +
+            "row_number() OVER (PARTITION BY t.taskDate ORDER BY ty.level DESC, t.id) AS position " +
+            "FROM TaskEntity t JOIN t.type ty WHERE t.taskDate BETWEEN :from AND :to) r " +
+            "WHERE r.position <= :limit ORDER BY r.taskDate, r.level DESC, r.id")
+    Stream<GetTaskInfo> streamByTaskDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                              @Param("limit") long limit);
+
+    /**
+     * Задачи за дату в виде моделей (приоритет определяется реестром типов)
+     */
+    @Query("SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t WHERE t.taskDate = :date")
+    List<TaskModel> findTaskModelsByTaskDate(@Param("date") LocalDate date);
+
+    boolean existsByTypeId(Long typeId);
+
+    /**
+     * Количество задач и диапазон дат по паре (тег, тип) для указанных тегов - одним GROUP BY по индексу задач тега
+     */
+    @Query("SELECT new com.billing.testtask.dto.TagTypeStats(t.tag.id, t.type.id, count(t), min(t.taskDate), max(t.taskDate)) " +
+            "FROM TaskEntity t WHERE t.tag.id IN :tagIds GROUP BY t.tag.id, t.type.id")
+    List<TagTypeStats> aggregateByTagAndType(@Param("tagIds") Collection<Long> tagIds);
+
+    /**
+     * Удаляет все задачи тега одним оператором DELETE (без загрузки сущностей)
+     */
+    @Modifying
+    @Query("DELETE FROM TaskEntity t WHERE t.tag.id = :tagId")
+    int deleteByTagId(@Param("tagId") Long tagId);
+
+    /**
+     * Все задачи в виде моделей
+     */
+    @Query("SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t ORDER BY t.id")
+    List<TaskModel> findAllTaskModels();
+
+    /**
+     * Страница задач в виде моделей
+     */
+    @Query(value = "SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t",
+            countQuery = "SELECT count(t) FROM TaskEntity t")
+    Page<TaskModel> findAllTaskModels(Pageable pageable);
+
+    /**
+     * Задачи тега в виде моделей
+     */
+    @Query("SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t WHERE t.tag.id = :tagId ORDER BY t.id")
+    List<TaskModel> findTaskModelsByTagId(@Param("tagId") Long tagId);
+
+    /**
+     * Потоковое чтение всех задач через серверный курсор JDBC.
+     * Требует открытой транзакции.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t ORDER BY t.id")
+    Stream<TaskModel> streamAllTaskModels();
+
+    /**
+     * Потоковое чтение задач начиная с указанной даты (для построения индекса по дням).
+     * Требует открытой транзакции.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t WHERE t.taskDate >= :from")
+    Stream<TaskModel> streamTaskModelsFrom(@Param("from") LocalDate from);
+
+    /**
+     * Первая порция задач для курсорной пагинации (без запроса count)
+     */
+    @Query("SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t")
+    Slice<TaskModel> findFirstTaskModels(Pageable pageable);
+
+    /**
+     * Следующая порция задач после указанного идентификатора (keyset по id)
+     */
+    @Query("SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t WHERE t.id > :afterId ORDER BY t.id")
+    Slice<TaskModel> findAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Следующая порция задач после пары (дата, id) (keyset по task_date, id).
+     * Задачи без даты идут после всех задач с датой и выбираются {@link #findWithoutTaskDateAfterId}.
+     */
+    @Query("SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t WHERE t.taskDate >= :date AND (t.taskDate > :date OR t.id > :afterId) " +
+            "ORDER BY t.taskDate, t.id")
+    Slice<TaskModel> findAfterTaskDate(@Param("date") LocalDate date, @Param("afterId") Long afterId, Pageable pageable);
 
-    @Query("SELECT t FROM TaskEntity t JOIN FETCH t.type WHERE t.tag.id = :tagId ORDER BY t.type.level DESC")
-    List<TaskEntity> findByTagIdOrderByTypePriority(@Param("tagId") Long tagId);
+    /**
+     * Следующая порция задач без даты после указанного идентификатора (keyset по task_date IS NULL, id)
+     */
+    @Query("SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t WHERE t.taskDate IS NULL AND t.id > :afterId ORDER BY t.id")
+    Slice<TaskModel> findWithoutTaskDateAfterId(@Param("afterId") Long afterId, Pageable pageable);
 
-    Page<TaskEntity> findAll(Pageable pageable);
-}
\ No newline at end of file
+    /**
+     * Ближайшие задачи типа начиная с даты в порядке (дата, id); размер выборки задает pageable
+     * (индекс (uid_type, task_date, id) читается только на длину выборки)
+     */
+    @Query("SELECT new com.billing.testtask.model.TaskModel(t.id, t.name, t.description, t.taskDate, t.tag.id, t.type.id) " +
+            "FROM TaskEntity t WHERE t.type.id = :typeId AND t.taskDate >= :from ORDER BY t.taskDate, t.id")
+    List<TaskModel> findUpcomingByType(@Param("typeId") Long typeId, @Param("from") LocalDate from, Pageable pageable);
+}
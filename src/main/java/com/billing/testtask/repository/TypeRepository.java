@@ -1,18 +1,37 @@
 package com.billing.testtask.repository;
 
 import com.billing.testtask.entity.TypeEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
+/**
+ * Репозиторий типов.
+ * Сущности типов хранятся в кэше второго уровня (регион type), списки по приоритету - в кэше запросов
+ * (регион {@link #ORDERED_REGION}); изменение таблицы type делает закэшированные списки недействительными.
+ */
 @Repository
 public interface TypeRepository extends JpaRepository<TypeEntity, Long> {
 
+    /**
+     * Регион кэша запросов для списков типов
+     */
+    String ORDERED_REGION = "type-ordered";
+
     // Сортировка по возрастанию приоритета
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ORDERED_REGION)})
     List<TypeEntity> findAllByOrderByLevelAsc();
 
     // Сортировка по убыванию приоритета
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ORDERED_REGION)})
     List<TypeEntity> findAllByOrderByLevelDesc();
 
-}
\ No newline at end of file
+}
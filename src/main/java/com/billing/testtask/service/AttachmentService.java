@@ -0,0 +1,40 @@
+package com.billing.testtask.service;
+
+import com.billing.testtask.dto.AttachmentFile;
+import com.billing.testtask.dto.AttachmentInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Сервис для хранения вложений задач.
+ */
+public interface AttachmentService {
+
+    /**
+     * Потоково сохраняет вложение задачи, вычисляя контрольную сумму SHA-256.
+     * Вложение с тем же именем заменяется атомарно. Из имени файла клиента отбрасывается путь
+     * и управляющие символы; сохраненное имя возвращается в сведениях о вложении.
+     *
+     * @param taskId        идентификатор задачи
+     * @param name          имя файла клиента
+     * @param content       содержимое
+     * @param contentLength заявленный размер (-1, если неизвестен)
+     * @return сведения о сохраненном вложении
+     * @throws jakarta.persistence.EntityNotFoundException если задача не найдена
+     * @throws org.springframework.web.multipart.MaxUploadSizeExceededException если вложение больше допустимого размера
+     * @throws IOException при ошибках чтения или записи
+     */
+    AttachmentInfo store(Long taskId, String name, InputStream content, long contentLength) throws IOException;
+
+    /**
+     * Находит файл вложения задачи.
+     *
+     * @param taskId идентификатор задачи
+     * @param name   имя файла вложения
+     * @return файл вложения
+     * @throws jakarta.persistence.EntityNotFoundException если вложение не найдено
+     * @throws IOException при ошибках чтения атрибутов файла
+     */
+    AttachmentFile find(Long taskId, String name) throws IOException;
+}
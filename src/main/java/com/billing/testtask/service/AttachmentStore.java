@@ -0,0 +1,56 @@
+package com.billing.testtask.service;
+
+import com.billing.testtask.dto.StagedBlob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Хранилище содержимого вложений, адресуемого по SHA-256.
+ * Одинаковое содержимое хранится один раз; учет ссылок на содержимое ведет вызывающая сторона.
+ */
+public interface AttachmentStore {
+
+    /**
+     * Записывает содержимое во временный файл хранилища, вычисляя SHA-256.
+     *
+     * @param content содержимое
+     * @param maxSize максимальный размер в байтах
+     * @return записанное содержимое
+     * @throws org.springframework.web.multipart.MaxUploadSizeExceededException если содержимое больше maxSize
+     * @throws IOException при ошибках чтения или записи
+     */
+    StagedBlob stage(InputStream content, long maxSize) throws IOException;
+
+    /**
+     * Помещает записанное содержимое в хранилище. Если такое содержимое уже есть, временный файл удаляется.
+     *
+     * @param blob записанное содержимое
+     * @throws IOException при ошибках записи
+     */
+    void commit(StagedBlob blob) throws IOException;
+
+    /**
+     * Удаляет временный файл, если содержимое не было помещено в хранилище.
+     *
+     * @param blob записанное содержимое
+     */
+    void discard(StagedBlob blob);
+
+    /**
+     * Путь к файлу содержимого.
+     *
+     * @param sha256 контрольная сумма содержимого
+     * @return путь к файлу (файл может отсутствовать)
+     */
+    Path locate(String sha256);
+
+    /**
+     * Удаляет файл содержимого.
+     *
+     * @param sha256 контрольная сумма содержимого
+     * @throws IOException при ошибках удаления
+     */
+    void delete(String sha256) throws IOException;
+}
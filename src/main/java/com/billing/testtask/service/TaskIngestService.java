@@ -0,0 +1,32 @@
+package com.billing.testtask.service;
+
+import com.billing.testtask.dto.TaskIngestStatus;
+import com.billing.testtask.model.TaskModel;
+
+import java.util.Optional;
+
+/**
+ * Сервис асинхронного создания задач (write-behind): задача проверяется и получает идентификатор сразу,
+ * а записывается в базу фоновым потоком вместе с другими задачами очереди.
+ */
+public interface TaskIngestService {
+
+    /**
+     * Проверяет задачу, резервирует для нее идентификатор и ставит в очередь записи.
+     *
+     * @param task модель новой задачи
+     * @return зарезервированный идентификатор или пустой Optional, если очередь заполнена
+     *         или приложение останавливается
+     * @throws IllegalArgumentException если задача некорректна
+     * @throws jakarta.persistence.EntityNotFoundException если тег или тип не найден
+     */
+    Optional<Long> submit(TaskModel task);
+
+    /**
+     * Состояние задачи, принятой на асинхронную запись.
+     *
+     * @param id зарезервированный идентификатор
+     * @return состояние или пустой Optional, если задача с таким идентификатором не принималась и не существует
+     */
+    Optional<TaskIngestStatus> getStatus(Long id);
+}
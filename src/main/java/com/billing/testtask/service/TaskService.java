@@ -1,11 +1,17 @@
 package com.billing.testtask.service;
 
+import com.billing.testtask.dto.CursorPage;
+import com.billing.testtask.dto.DayTasks;
 import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.dto.TaskBatchResult;
+import com.billing.testtask.dto.TaskCursorSort;
+import com.billing.testtask.dto.TaskSearchQuery;
 import com.billing.testtask.model.TaskModel;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Сервис для управления задачами.
@@ -22,6 +28,17 @@ public interface TaskService {
      */
     Long save(TaskModel task);
 
+    /**
+     * Создает пакет новых задач.
+     * Теги и типы разрешаются один раз на пакет, вставка выполняется пакетами JDBC.
+     * Некорректные строки отклоняются, не мешая сохранению остальных.
+     *
+     * @param tasks модели новых задач
+     * @return результат по каждой строке в порядке следования
+     * @throws IllegalArgumentException если пакет пуст или превышает допустимый размер
+     */
+    List<TaskBatchResult> saveAll(List<TaskModel> tasks);
+
     /**
      * Удаляет задачу по идентификатору.
      *
@@ -37,6 +54,14 @@ public interface TaskService {
      */
     List<TaskModel> getAllTasks();
 
+    /**
+     * Передает все задачи потребителю по мере чтения из базы данных.
+     * Задачи не накапливаются в памяти, поэтому потребление памяти не зависит от их количества.
+     *
+     * @param consumer обработчик очередной задачи
+     */
+    void streamAllTasks(Consumer<TaskModel> consumer);
+
     /**
      * Получает страницу с задачами с поддержкой пагинации.
      *
@@ -45,6 +70,19 @@ public interface TaskService {
      */
     Page<TaskModel> getAllTasks(Pageable pageable);
 
+    /**
+     * Получает порцию задач с курсорной (keyset) пагинацией.
+     * Стоимость запроса не зависит от глубины страницы, общее количество не подсчитывается.
+     *
+     * @param cursor курсор, полученный с предыдущей порцией (null - с начала)
+     * @param size размер порции
+     * @param sort порядок обхода задач
+     * @return порция задач и курсор для следующей порции
+     * @throws IllegalArgumentException если курсор некорректен или не соответствует порядку обхода,
+     *                                  или размер порции не положителен или больше task.cursor.max-size
+     */
+    CursorPage<TaskModel> getAllTasks(String cursor, int size, TaskCursorSort sort);
+
     /**
      * Получает задачи за указанную дату, отсортированные по приоритету типа задачи.
      *
@@ -53,4 +91,38 @@ public interface TaskService {
      * @throws IllegalArgumentException если дата не указана
      */
     List<GetTaskInfo> getTasksByDateSortedByPriority(LocalDate date);
-}
\ No newline at end of file
+
+    /**
+     * Передает задачи за диапазон дат по дням (дни без задач пропускаются), внутри дня - по убыванию приоритета типа.
+     * Все дни читаются одним запросом; в памяти держится только текущий день.
+     *
+     * @param from первый день (включительно)
+     * @param to последний день (включительно)
+     * @param perDayLimit максимум задач на день (null - без ограничения)
+     * @param consumer получатель задач очередного дня
+     * @throws IllegalArgumentException если даты не указаны, перепутаны, диапазон длиннее task.range.max-days
+     *                                  или ограничение не положительно
+     */
+    void streamTasksByDateRange(LocalDate from, LocalDate to, Integer perDayLimit, Consumer<DayTasks> consumer);
+
+    /**
+     * Получает k самых срочных задач начиная с сегодняшнего дня по всем датам:
+     * по убыванию приоритета типа, при равном приоритете - по дате и идентификатору.
+     * Стоимость зависит от k и количества типов, а не от размера таблицы задач.
+     *
+     * @param k количество задач
+     * @return не больше k задач в порядке срочности
+     * @throws IllegalArgumentException если k не положительно или больше task.top.max-k
+     */
+    List<GetTaskInfo> getTopTasks(int k);
+
+    /**
+     * Полнотекстовый поиск задач по названию и описанию с фильтрами по тегу, типу и дате.
+     *
+     * @param query текст запроса и фильтры
+     * @param pageable номер и размер страницы
+     * @return страница задач в порядке убывания релевантности
+     * @throws IllegalArgumentException если текст запроса пустой или страница слишком далеко
+     */
+    Page<TaskModel> searchTasks(TaskSearchQuery query, Pageable pageable);
+}
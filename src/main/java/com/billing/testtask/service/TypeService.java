@@ -1,12 +1,14 @@
 package com.billing.testtask.service;
 
+import com.billing.testtask.dto.TypeCatalog;
 import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.model.TypeModel;
 
 import java.util.List;
 
 /**
  * Интерфейс сервиса для работы с типами задач.
- * Предоставляет методы для получения типов задач.
+ * Предоставляет методы для получения и изменения типов задач.
  */
 public interface TypeService {
 
@@ -19,4 +21,30 @@ public interface TypeService {
      * @return список всех типов задач, отсортированных в соответствии с параметром ascending.
      */
     List<TypeEntity> getAllTypes(boolean ascending);
+
+    /**
+     * Текущий снимок списка типов для готовых ответов (без обращения к базе данных):
+     * версия для условных запросов и оба порядка сортировки из одного снимка реестра.
+     *
+     * @return согласованный снимок реестра типов
+     */
+    TypeCatalog getCatalog();
+
+    /**
+     * Создает или обновляет тип задачи и публикует новый снимок реестра типов.
+     *
+     * @param type модель типа (без id - создание, с id - обновление)
+     * @return сохраненная модель типа
+     * @throws jakarta.persistence.EntityNotFoundException если обновляемый тип не найден
+     */
+    TypeModel save(TypeModel type);
+
+    /**
+     * Удаляет тип задачи и публикует новый снимок реестра типов.
+     *
+     * @param id идентификатор типа
+     * @throws jakarta.persistence.EntityNotFoundException если тип не найден
+     * @throws IllegalStateException если тип используется задачами
+     */
+    void delete(Long id);
 }
@@ -0,0 +1,286 @@
+package com.billing.testtask.service.impl;
+
+import com.billing.testtask.dto.AttachmentFile;
+import com.billing.testtask.dto.AttachmentInfo;
+import com.billing.testtask.dto.StagedBlob;
+import com.billing.testtask.entity.AttachmentEntity;
+import com.billing.testtask.event.TagDeletedEvent;
+import com.billing.testtask.event.TaskChangedEvent;
+import com.billing.testtask.repository.AttachmentBlobRepository;
+import com.billing.testtask.repository.AttachmentRepository;
+import com.billing.testtask.repository.TaskRepository;
+import com.billing.testtask.service.AttachmentService;
+import com.billing.testtask.service.AttachmentStore;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Реализация сервиса вложений задач.
+ * <p>
+ * Содержимое хранится в {@link AttachmentStore} по SHA-256, таблица attachment связывает задачу и имя файла
+ * с содержимым, attachment_blob ведет счетчик ссылок. Повторная загрузка уже сохраненного содержимого
+ * сводится к вставке метаданных. Содержимое без ссылок удаляется после фиксации транзакции
+ * под блокировкой содержимого ({@link AttachmentBlobRepository#lockContent}), которую берет и загрузка того же содержимого.
+ */
+@Slf4j
+@Service
+public class AttachmentServiceImpl implements AttachmentService {
+
+    private static final Pattern CONTROL_CHARS = Pattern.compile("\\p{Cntrl}");
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final String DEFAULT_NAME = "file";
+
+    private final TaskRepository taskRepository;
+    private final AttachmentRepository attachmentRepository;
+    private final AttachmentBlobRepository blobRepository;
+    private final AttachmentStore attachmentStore;
+    /**
+     * Короткая транзакция сохранения метаданных вложения
+     */
+    private final TransactionTemplate transaction;
+    /**
+     * Отдельная транзакция для работы после фиксации: обработчики событий и afterCommit выполняются,
+     * пока ресурсы завершенной транзакции еще привязаны к потоку, и REQUIRED присоединился бы к ней
+     */
+    private final TransactionTemplate newTransaction;
+
+    @Value("${attachment.max-size:100MB}")
+    private DataSize maxSize;
+
+    @Value("${attachment.cleanup.batch-size:500}")
+    private int cleanupBatchSize;
+
+    @Value("${attachment.cleanup.pause:200ms}")
+    private Duration cleanupPause;
+
+    @Autowired
+    public AttachmentServiceImpl(TaskRepository taskRepository, AttachmentRepository attachmentRepository,
+                                 AttachmentBlobRepository blobRepository, AttachmentStore attachmentStore,
+                                 PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.attachmentRepository = attachmentRepository;
+        this.blobRepository = blobRepository;
+        this.attachmentStore = attachmentStore;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Содержимое записывается во временный файл вне транзакции, чтобы медленная загрузка не занимала соединение с базой.
+     * Ссылка на содержимое и метаданные сохраняются в одной короткой транзакции, файл помещается
+     * в хранилище после ее фиксации: при откате в хранилище не остается файла без записи.
+     */
+    @Override
+    public AttachmentInfo store(Long taskId, String originalName, InputStream content, long contentLength) throws IOException {
+        String name = normalizeName(originalName);
+        long limit = maxSize.toBytes();
+        if (contentLength > limit) {
+            throw new MaxUploadSizeExceededException(limit);
+        }
+
+        StagedBlob blob = attachmentStore.stage(content, limit);
+        try {
+            transaction.executeWithoutResult(status -> link(taskId, name, blob));
+            try {
+                attachmentStore.commit(blob);
+            } catch (IOException e) {
+                transaction.executeWithoutResult(status -> unlink(taskId, name, blob.getSha256()));
+                throw e;
+            }
+        } finally {
+            attachmentStore.discard(blob);
+        }
+
+        return AttachmentInfo.builder()
+                .taskId(taskId)
+                .name(name)
+                .size(blob.getSize())
+                .sha256(blob.getSha256())
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AttachmentFile find(Long taskId, String name) throws IOException {
+        AttachmentEntity attachment = attachmentRepository.findByTaskIdAndName(taskId, name)
+                .orElseThrow(() -> new EntityNotFoundException("Вложение " + name + " задачи " + taskId + " не найдено"));
+        Path path = attachmentStore.locate(attachment.getSha256());
+        if (!Files.isRegularFile(path)) {
+            throw new EntityNotFoundException("Содержимое вложения " + name + " задачи " + taskId + " не найдено");
+        }
+        long lastModified = attachment.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new AttachmentFile(path, Files.size(path), lastModified, "\"" + attachment.getSha256() + "\"");
+    }
+
+    /**
+     * Освобождает вложения удаленной задачи.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (event.getCurrent() == null && event.getPrevious() != null) {
+            newTransaction.executeWithoutResult(status ->
+                    deleteAll(attachmentRepository.findByTaskId(event.getPrevious().getId())));
+        }
+    }
+
+    /**
+     * Освобождает вложения задач, удаленных вместе с тегом.
+     * Выполняется асинхронно порциями в отдельных транзакциях с паузой между ними,
+     * чтобы удаление тега с большим числом задач не нагружало базу и диск одним всплеском.
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTagDeleted(TagDeletedEvent event) {
+        long released = 0;
+        while (true) {
+            List<AttachmentEntity> batch = newTransaction.execute(status -> {
+                List<AttachmentEntity> orphans = attachmentRepository.lockOrphans(cleanupBatchSize);
+                deleteAll(orphans);
+                return orphans;
+            });
+            released += batch.size();
+            if (batch.size() < cleanupBatchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(cleanupPause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (released > 0) {
+            log.info("Освобождено вложений задач тега {}: {}", event.getTagId(), released);
+        }
+    }
+
+    /**
+     * Берет ссылку на содержимое и связывает его с задачей; прежнее содержимое вложения освобождается.
+     * Блокировка содержимого держится до фиксации: параллельное удаление того же содержимого
+     * дождется ее и увидит новую ссылку.
+     */
+    private void link(Long taskId, String name, StagedBlob blob) {
+        if (!taskRepository.existsById(taskId)) {
+            throw new EntityNotFoundException("Задача с id: " + taskId + " не найдена.");
+        }
+        blobRepository.lockContent(blob.getSha256());
+        blobRepository.acquire(blob.getSha256(), blob.getSize());
+
+        AttachmentEntity attachment = attachmentRepository.findByTaskIdAndName(taskId, name).orElse(null);
+        if (attachment == null) {
+            attachment = AttachmentEntity.builder()
+                    .taskId(taskId)
+                    .name(name)
+                    .build();
+        } else {
+            release(attachment.getSha256());
+        }
+        attachment.setSha256(blob.getSha256());
+        attachment.setCreatedAt(LocalDateTime.now());
+        attachmentRepository.save(attachment);
+    }
+
+    /**
+     * Удаляет вложение, содержимое которого не удалось поместить в хранилище, если его еще не заменили.
+     */
+    private void unlink(Long taskId, String name, String sha256) {
+        attachmentRepository.findByTaskIdAndName(taskId, name)
+                .filter(attachment -> attachment.getSha256().equals(sha256))
+                .ifPresent(attachment -> deleteAll(List.of(attachment)));
+    }
+
+    private void deleteAll(List<AttachmentEntity> attachments) {
+        for (AttachmentEntity attachment : attachments) {
+            attachmentRepository.delete(attachment);
+            release(attachment.getSha256());
+        }
+    }
+
+    /**
+     * Убирает ссылку на содержимое; если ссылок не осталось, файл удаляется после фиксации транзакции.
+     */
+    private void release(String sha256) {
+        blobRepository.release(sha256);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                purge(sha256);
+            }
+        });
+    }
+
+    /**
+     * Удаляет запись содержимого, если на него нет ссылок, а после фиксации удаления - файл.
+     * Файл удаляется во второй транзакции под блокировкой содержимого и только если строка не появилась снова:
+     * загрузка того же содержимого, успевшая сослаться на него, файл сохраняет.
+     */
+    private void purge(String sha256) {
+        try {
+            boolean deleted = Boolean.TRUE.equals(newTransaction.execute(status -> {
+                blobRepository.lockContent(sha256);
+                return blobRepository.lockUnreferenced(sha256)
+                        .map(unreferenced -> {
+                            blobRepository.deleteById(unreferenced);
+                            return true;
+                        })
+                        .orElse(false);
+            }));
+            if (!deleted) {
+                return;
+            }
+            newTransaction.executeWithoutResult(status -> {
+                blobRepository.lockContent(sha256);
+                if (!blobRepository.existsById(sha256)) {
+                    try {
+                        attachmentStore.delete(sha256);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Содержимое {} без ссылок не удалено", sha256, e);
+        }
+    }
+
+    /**
+     * Имя вложения из имени файла клиента. Имя хранится только в метаданных (содержимое лежит по SHA-256),
+     * поэтому допустимы любые символы, кроме управляющих; путь, который передают некоторые браузеры, отбрасывается.
+     * Пустое имя и имена из одних точек заменяются на {@value #DEFAULT_NAME}.
+     */
+    static String normalizeName(String originalName) {
+        String name = originalName == null ? "" : originalName;
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        name = CONTROL_CHARS.matcher(name).replaceAll("_").strip();
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = name.substring(0, Character.isHighSurrogate(name.charAt(MAX_NAME_LENGTH - 1))
+                    ? MAX_NAME_LENGTH - 1 : MAX_NAME_LENGTH);
+        }
+        return name.replace(".", "").isEmpty() ? DEFAULT_NAME : name;
+    }
+}
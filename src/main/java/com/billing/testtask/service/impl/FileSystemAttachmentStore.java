@@ -0,0 +1,120 @@
+package com.billing.testtask.service.impl;
+
+import com.billing.testtask.dto.StagedBlob;
+import com.billing.testtask.service.AttachmentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Хранилище содержимого вложений в файловой системе.
+ * <p>
+ * Файл содержимого лежит в {upload.path}/blobs/ab/cd/abcd…, где ab и cd - первые байты SHA-256:
+ * 65 536 каталогов по несколько десятков файлов даже при миллионах вложений.
+ * Временные файлы пишутся в {upload.path}/tmp той же файловой системы, поэтому помещение
+ * в хранилище - атомарное переименование без повторной записи данных.
+ */
+@Slf4j
+@Component
+public class FileSystemAttachmentStore implements AttachmentStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path blobsDir;
+    private final Path tempDir;
+
+    public FileSystemAttachmentStore(@Value("${upload.path}") String uploadPath) {
+        Path root = Path.of(uploadPath).toAbsolutePath();
+        this.blobsDir = root.resolve("blobs");
+        this.tempDir = root.resolve("tmp");
+    }
+
+    @Override
+    public StagedBlob stage(InputStream content, long maxSize) throws IOException {
+        Files.createDirectories(tempDir);
+        Path temp = tempDir.resolve(UUID.randomUUID() + ".part");
+        MessageDigest digest = sha256();
+        long size = 0;
+        boolean staged = false;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            int read;
+            while ((read = content.read(buffer.array())) != -1) {
+                size += read;
+                if (size > maxSize) {
+                    throw new MaxUploadSizeExceededException(maxSize);
+                }
+                digest.update(buffer.array(), 0, read);
+                buffer.limit(read);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+            channel.force(true);
+            staged = true;
+        } finally {
+            if (!staged) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return new StagedBlob(temp, HexFormat.of().formatHex(digest.digest()), size);
+    }
+
+    @Override
+    public void commit(StagedBlob blob) throws IOException {
+        Path target = locate(blob.getSha256());
+        if (Files.exists(target)) {
+            Files.deleteIfExists(blob.getTempFile());
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(blob.getTempFile(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(blob.getTempFile());
+        }
+    }
+
+    @Override
+    public void discard(StagedBlob blob) {
+        try {
+            Files.deleteIfExists(blob.getTempFile());
+        } catch (IOException e) {
+            log.warn("Не удалось удалить временный файл {}", blob.getTempFile(), e);
+        }
+    }
+
+    @Override
+    public Path locate(String sha256) {
+        return blobsDir.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    @Override
+    public void delete(String sha256) throws IOException {
+        Files.deleteIfExists(locate(sha256));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.billing.testtask.service.impl;
+
+import com.billing.testtask.repository.TaskRepository;
+import com.billing.testtask.service.AttachmentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Перенос файлов из прежнего плоского каталога загрузок ({upload.path}/task-{id}.{имя})
+ * в хранилище вложений. Выполняется при старте; перенесенный файл удаляется,
+ * файлы удаленных задач остаются на месте.
+ */
+@Slf4j
+@Component
+public class LegacyUploadImporter {
+
+    private static final Pattern LEGACY_NAME = Pattern.compile("task-(\\d+)\\.(.+)");
+
+    private final AttachmentService attachmentService;
+    private final TaskRepository taskRepository;
+    private final Path uploadDir;
+
+    @Autowired
+    public LegacyUploadImporter(AttachmentService attachmentService, TaskRepository taskRepository,
+                                @Value("${upload.path}") String uploadPath) {
+        this.attachmentService = attachmentService;
+        this.taskRepository = taskRepository;
+        this.uploadDir = Path.of(uploadPath);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void importLegacyUploads() {
+        if (!Files.isDirectory(uploadDir)) {
+            return;
+        }
+        int imported = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadDir, Files::isRegularFile)) {
+            for (Path file : files) {
+                Matcher matcher = LEGACY_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && importFile(file, Long.valueOf(matcher.group(1)), matcher.group(2))) {
+                    imported++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось прочитать каталог загрузок {}", uploadDir, e);
+        }
+        if (imported > 0) {
+            log.info("В хранилище вложений перенесено файлов: {}", imported);
+        }
+    }
+
+    private boolean importFile(Path file, Long taskId, String name) {
+        if (!taskRepository.existsById(taskId)) {
+            return false;
+        }
+        try (InputStream content = Files.newInputStream(file)) {
+            attachmentService.store(taskId, name, content, Files.size(file));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось перенести файл {}", file, e);
+            return false;
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            log.warn("Файл {} перенесен, но не удален", file, e);
+        }
+        return true;
+    }
+}
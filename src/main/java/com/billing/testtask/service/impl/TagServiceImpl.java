@@ -1,23 +1,35 @@
 package com.billing.testtask.service.impl;
 
-import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.config.ReplicaRoutingDataSource;
+import com.billing.testtask.dto.TagSummary;
+import com.billing.testtask.dto.TagTaskRow;
+import com.billing.testtask.dto.TagTypeStats;
 import com.billing.testtask.dto.TagWithTask;
+import com.billing.testtask.event.TagDeletedEvent;
 import com.billing.testtask.repository.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.billing.testtask.entity.TagEntity;
-import com.billing.testtask.entity.TaskEntity;
 import com.billing.testtask.model.TagModel;
 import com.billing.testtask.model.TaskModel;
 import com.billing.testtask.repository.TagRepository;
 import com.billing.testtask.service.TagService;
 
 import jakarta.persistence.EntityNotFoundException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -27,11 +39,18 @@ import java.util.stream.Collectors;
 public class TagServiceImpl implements TagService {
     private final TagRepository repository;
     private final TaskRepository taskRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TypeRegistry typeRegistry;
+    private final TagsCache tagsCache;
 
     @Autowired
-    public TagServiceImpl(TagRepository repository, TaskRepository taskRepository) {
+    public TagServiceImpl(TagRepository repository, TaskRepository taskRepository,
+                          ApplicationEventPublisher eventPublisher, TypeRegistry typeRegistry, TagsCache tagsCache) {
         this.repository = repository;
         this.taskRepository = taskRepository;
+        this.eventPublisher = eventPublisher;
+        this.typeRegistry = typeRegistry;
+        this.tagsCache = tagsCache;
     }
 
     /**
@@ -39,85 +58,191 @@ public class TagServiceImpl implements TagService {
      *
      * @return сущность TagEntity с тегами и задачами
      */
+    @Transactional(readOnly = true)
     public List<TagEntity> getTagsWithTasks() {
         return repository.findTagsWithTasks();
     }
 
     /**
-     * Получает тег с отсортированными по приоритету типа задачами
+     * Страница сводок по тегам, у которых есть задачи.
+     * Агрегаты считаются в базе данных: один запрос выбирает страницу тегов,
+     * второй - GROUP BY (тег, тип) только по тегам страницы; задачи не загружаются.
+     *
+     * @param pageable параметры страницы (сортировка по id, если не задана)
+     * @return страница сводок
+     */
+    @Transactional(readOnly = true)
+    public Page<TagSummary> getTagSummaries(Pageable pageable) {
+        Pageable ordered = pageable.getSort().isSorted()
+                ? pageable
+                : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"));
+        Page<TagSummary> page = repository.findTagSummaries(ordered);
+        if (page.isEmpty()) {
+            return page;
+        }
+
+        Map<Long, TagSummary> byId = page.getContent().stream()
+                .collect(Collectors.toMap(TagSummary::getId, Function.identity()));
+        for (TagTypeStats stats : taskRepository.aggregateByTagAndType(byId.keySet())) {
+            TagSummary summary = byId.get(stats.getTagId());
+            summary.setTaskCount(summary.getTaskCount() + stats.getCount());
+            summary.getTasksByType().put(stats.getTypeId(), stats.getCount());
+            if (summary.getFirstTaskDate() == null || isBefore(stats.getFirstTaskDate(), summary.getFirstTaskDate())) {
+                summary.setFirstTaskDate(stats.getFirstTaskDate());
+            }
+            if (summary.getLastTaskDate() == null || isBefore(summary.getLastTaskDate(), stats.getLastTaskDate())) {
+                summary.setLastTaskDate(stats.getLastTaskDate());
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Получает тег с отсортированными по приоритету типа задачами.
+     * Читается из основной базы, как и версия для ETag ({@link #getTagVersion}).
      *
      * @param tagId идентификатор тега
      * @return DTO с информацией о теге и отсортированными задачами
      * @throws EntityNotFoundException если тег не найден
      */
+    @Transactional(readOnly = true)
     public TagWithTask getTagWithSortedTasks(Long tagId) {
-        TagEntity tag = repository.findById(tagId)
-                .orElseThrow(() -> new EntityNotFoundException("Тег с id=" + tagId + " не найден"));
-
-        List<TaskEntity> tasks = taskRepository.findByTagIdOrderByTypePriority(tagId);
+        TagModel tag = ReplicaRoutingDataSource.readFromPrimary(() -> findWithTasks(tagId)
+                .orElseThrow(() -> new EntityNotFoundException("Тег с id=" + tagId + " не найден")));
 
         return TagWithTask.builder()
-                .id(tag.getId())
+                .id(tagId)
                 .title(tag.getTitle())
-                .tasks(tasks.stream()
-                        .map(this::convertToTaskSimpleDto)
-                        .collect(Collectors.toList()))
+                .tasks(typeRegistry.sortByPriority(tag.getTasks()))
                 .build();
     }
 
+    private static boolean isBefore(LocalDate date, LocalDate other) {
+        return date != null && (other == null || date.isBefore(other));
+    }
+
     /**
-     * Конвертирует сущность задачи в DTO с основной информацией
+     * Версия тега со списком задач для условных запросов.
+     * Читается одним запросом, сущности не загружаются. Как и тело ответа, читается из основной базы:
+     * версия с отстающей реплики дала бы ответ 304 или ETag, не совпадающий с телом.
      *
-     * @param entity сущность задачи
-     * @return DTO с информацией о задаче
+     * @param id идентификатор тега
+     * @return версия тега и отпечаток его задач
+     * @throws EntityNotFoundException если тег не найден
      */
-    private GetTaskInfo convertToTaskSimpleDto(TaskEntity entity) {
-        return GetTaskInfo.builder()
-                .id(entity.getId())
-                .name(entity.getName())
-                .description(entity.getDescription())
-                .taskDate(entity.getTaskDate())
-                .typeTitle(entity.getType() != null ? entity.getType().getTitle() : "Без типа")
-                .build();
+    @Transactional(readOnly = true)
+    public String getTagVersion(Long id) {
+        return ReplicaRoutingDataSource.readFromPrimary(() -> repository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Тег[id=" + id + "] не найден в базе данных")));
+    }
+
+    /**
+     * Версия тега с отсортированными задачами: кроме версии тега учитывает версию реестра типов,
+     * так как порядок задач и заголовки типов берутся из него.
+     *
+     * @param id идентификатор тега
+     * @return версия представления
+     * @throws EntityNotFoundException если тег не найден
+     */
+    @Transactional(readOnly = true)
+    public String getTagWithSortedTasksVersion(Long id) {
+        return getTagVersion(id) + "-" + typeRegistry.getVersion();
     }
 
     /**
      * Сохраняет или обновляет тег
      *
      * @param tag модель тега для сохранения
-     * @return сохраненная модель тега с обновленным ID и задачами
+     * @return сохраненная модель тега с обновленным ID (без списка задач)
      */
-    @CachePut(cacheNames = "tagsCache", key = "#tag.id")
     @Override
+    @Transactional
     public TagModel save(TagModel tag) {
-        TagEntity tagEntity = TagEntity.builder()
+        return save(tag, false);
+    }
+
+    /**
+     * Сохраняет или обновляет тег.
+     * Существующий тег переименовывается одним оператором UPDATE; список задач загружается,
+     * только если он нужен в ответе.
+     *
+     * @param tag модель тега для сохранения
+     * @param withTasks вернуть в ответе задачи тега
+     * @return сохраненная модель тега с обновленным ID
+     */
+    @Transactional
+    public TagModel save(TagModel tag, boolean withTasks) {
+        if (tag.getId() != null && repository.updateTitle(tag.getId(), tag.getTitle()) > 0) {
+            tagsCache.evictAfterCommit(List.of(tag.getId()));
+            tag.setTasks(withTasks ? taskRepository.findTaskModelsByTagId(tag.getId()) : null);
+            return tag;
+        }
+
+        TagEntity saved = repository.save(TagEntity.builder()
                 .title(tag.getTitle())
                 .tasks(new ArrayList<>())
-                .build();
+                .build());
+        tag.setId(saved.getId());
+        tag.setTasks(withTasks ? new ArrayList<>() : null);
+        return tag;
+    }
 
-        if (tag.getId() != null) {
-            repository.findById(tag.getId()).ifPresent(existingTag -> {
-                tagEntity.setId(tag.getId());
-                tagEntity.setTitle(tag.getTitle());
-                tagEntity.getTasks().addAll(existingTag.getTasks());
-            });
+    /**
+     * Переименовывает тег одним оператором UPDATE.
+     *
+     * @param id идентификатор тега
+     * @param title новый заголовок
+     * @return тег с новым заголовком (без списка задач)
+     * @throws EntityNotFoundException если тег не найден
+     */
+    @Transactional
+    public TagModel rename(Long id, String title) {
+        if (repository.updateTitle(id, title) == 0) {
+            throw new EntityNotFoundException("Тег[id=" + id + "] не найден в базе данных");
         }
+        tagsCache.evictAfterCommit(List.of(id));
+        return TagModel.builder()
+                .id(id)
+                .title(title)
+                .build();
+    }
 
-        repository.save(tagEntity);
-        tag.setId(tagEntity.getId());
+    /**
+     * Переименовывает несколько тегов одним оператором UPDATE.
+     * Если хотя бы один тег не найден, ни один тег не переименовывается.
+     *
+     * @param tags пары идентификатор - новый заголовок
+     * @return переименованные теги (без списков задач)
+     * @throws EntityNotFoundException если какой-либо тег не найден
+     */
+    @Transactional
+    public List<TagModel> renameAll(List<TagModel> tags) {
+        if (tags == null || tags.isEmpty()) {
+            throw new IllegalArgumentException("Список тегов не может быть пустым");
+        }
+        Long[] ids = new Long[tags.size()];
+        String[] titles = new String[tags.size()];
+        for (int i = 0; i < tags.size(); i++) {
+            TagModel tag = tags.get(i);
+            if (tag == null || tag.getId() == null || tag.getTitle() == null || tag.getTitle().isBlank()
+                    || tag.getTitle().length() > 255) {
+                throw new IllegalArgumentException("Для переименования нужны id и непустой заголовок (до 255 символов)");
+            }
+            ids[i] = tag.getId();
+            titles[i] = tag.getTitle();
+        }
+        if (Arrays.stream(ids).distinct().count() != ids.length) {
+            throw new IllegalArgumentException("Идентификаторы тегов повторяются");
+        }
 
-        List<TaskModel> tasks = tagEntity.getTasks().stream()
-                .map(task -> TaskModel.builder()
-                        .id(task.getId())
-                        .name(task.getName())
-                        .description(task.getDescription())
-                        .taskDate(task.getTaskDate())
-                        .tagId(tagEntity.getId())
-                        .build())
+        int updated = repository.updateTitles(ids, titles);
+        if (updated != ids.length) {
+            throw new EntityNotFoundException("Найдено тегов: " + updated + " из " + ids.length);
+        }
+        tagsCache.evictAfterCommit(Arrays.asList(ids));
+        return tags.stream()
+                .map(tag -> TagModel.builder().id(tag.getId()).title(tag.getTitle()).build())
                 .collect(Collectors.toList());
-
-        tag.setTasks(tasks);
-        return tag;
     }
 
     /**
@@ -125,16 +250,22 @@ public class TagServiceImpl implements TagService {
      *
      * @param id идентификатор тега для удаления
      */
-    @CacheEvict(cacheNames = "tagsCache", key = "#id")
     @Override
+    @Transactional
     public void delete(Long id) {
-        repository.findById(id)
+        // Задачи удаляются одним оператором, а не каскадом ORM по одной строке;
+        // блокировка тега не дает параллельно добавить в него задачу до удаления самого тега
+        repository.lockById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Тег[id=" + id + "] не найден в базе данных"));
-        repository.deleteById(id);
+        taskRepository.deleteByTagId(id);
+        repository.deleteTagById(id);
+        tagsCache.evictAfterCommit(List.of(id));
+        eventPublisher.publishEvent(new TagDeletedEvent(id));
     }
 
     /**
-     * Получает тег со всеми связанными задачами
+     * Получает тег со всеми связанными задачами.
+     * Читается из основной базы, а не из реплики: отстающая реплика заполнила бы кэш устаревшими задачами.
      *
      * @param id идентификатор тега
      * @return модель тега с задачами
@@ -142,25 +273,38 @@ public class TagServiceImpl implements TagService {
      */
     @Cacheable(cacheNames = "tagsCache", key = "#id")
     @Override
+    @Transactional(readOnly = true)
     public TagModel getAllTaskByTag(Long id) {
-        TagEntity tagEntity = repository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Тег[id=" + id + "] не найден в базе данных"));
+        return ReplicaRoutingDataSource.readFromPrimary(() -> findWithTasks(id)
+                .orElseThrow(() -> new EntityNotFoundException("Тег[id=" + id + "] не найден в базе данных")));
+    }
 
-        List<TaskModel> tasks = tagEntity.getTasks().stream()
-                .map(task -> TaskModel.builder()
-                        .id(task.getId())
-                        .name(task.getName())
-                        .description(task.getDescription())
-                        .taskDate(task.getTaskDate())
-                        .tagId(tagEntity.getId())
-                        .typeId(task.getType().getId())
+    /**
+     * Читает тег с задачами одним запросом (LEFT JOIN тега с задачами).
+     *
+     * @param id идентификатор тега
+     * @return модель тега с задачами по возрастанию id или пустой Optional, если тег не найден
+     */
+    private Optional<TagModel> findWithTasks(Long id) {
+        List<TagTaskRow> rows = repository.findWithTaskRows(id);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        List<TaskModel> tasks = rows.stream()
+                .filter(row -> row.getId() != null)
+                .map(row -> TaskModel.builder()
+                        .id(row.getId())
+                        .name(row.getName())
+                        .description(row.getDescription())
+                        .taskDate(row.getTaskDate())
+                        .tagId(id)
+                        .typeId(row.getTypeId())
                         .build())
                 .collect(Collectors.toList());
-
-        return TagModel.builder()
-                .id(tagEntity.getId())
-                .title(tagEntity.getTitle())
+        return Optional.of(TagModel.builder()
+                .id(id)
+                .title(rows.get(0).getTagTitle())
                 .tasks(tasks)
-                .build();
+                .build());
     }
 }
\ No newline at end of file
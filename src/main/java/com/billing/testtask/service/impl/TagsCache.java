@@ -0,0 +1,52 @@
+package com.billing.testtask.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Сброс закэшированных моделей тегов со списками задач (tagsCache).
+ * <p>
+ * Записи сбрасываются после фиксации транзакции: сброс до фиксации позволил бы параллельному чтению
+ * снова заполнить кэш задачами до изменения, и они выдавались бы до истечения записи под новым ETag.
+ * Вне транзакции записи сбрасываются сразу.
+ */
+@Component
+public class TagsCache {
+
+    public static final String NAME = "tagsCache";
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public TagsCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Сбрасывает записи тегов после фиксации текущей транзакции.
+     *
+     * @param tagIds идентификаторы тегов
+     */
+    public void evictAfterCommit(Collection<Long> tagIds) {
+        Cache cache = cacheManager.getCache(NAME);
+        if (cache == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            tagIds.forEach(cache::evict);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                tagIds.forEach(cache::evict);
+            }
+        });
+    }
+}
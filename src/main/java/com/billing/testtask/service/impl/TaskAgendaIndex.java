@@ -0,0 +1,356 @@
+package com.billing.testtask.service.impl;
+
+import com.billing.testtask.config.ReplicaRoutingDataSource;
+import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.event.TagDeletedEvent;
+import com.billing.testtask.event.TaskChangedEvent;
+import com.billing.testtask.event.TasksCreatedEvent;
+import com.billing.testtask.event.TypesChangedEvent;
+import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.repository.TaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Индекс задач по дням в памяти процесса (повестка дня).
+ * <p>
+ * Для каждого дня, начиная с даты построения индекса, хранит неизменяемый список задач,
+ * уже отсортированный по убыванию приоритета типа (при равенстве - по id).
+ * Чтение не обращается к базе данных и не блокируется; изменения применяются копированием
+ * списка одного дня после фиксации транзакции, изменившей задачу.
+ * Запросы за дни раньше даты построения индекса обслуживаются репозиторием.
+ */
+@Slf4j
+@Component
+public class TaskAgendaIndex {
+
+    private static final Comparator<Entry> PRIORITY_ORDER = Comparator
+            .comparingInt(Entry::level).reversed()
+            .thenComparing(Entry::id);
+
+    private final TaskRepository taskRepository;
+    private final TypeRegistry typeRegistry;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Map<Long, Day> days = new ConcurrentHashMap<>();
+
+    /**
+     * Упорядочивает построение индекса и применение изменений.
+     * ReentrantLock вместо synchronized: построение читает базу под блокировкой,
+     * и виртуальный поток не должен закрепляться за потоком-носителем.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Первый день, покрываемый индексом (null, пока индекс не построен)
+     */
+    private volatile LocalDate indexedFrom;
+
+    @Value("${agenda.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${agenda.index.verify:false}")
+    private boolean verify;
+
+    @Autowired
+    public TaskAgendaIndex(TaskRepository taskRepository, TypeRegistry typeRegistry,
+                           PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.typeRegistry = typeRegistry;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Возвращает задачи дня, отсортированные по приоритету, если день покрыт индексом.
+     * В режиме проверки (agenda.index.verify) сравнивает результат с запросом к базе
+     * и при расхождении возвращает данные базы.
+     *
+     * @param date дата
+     * @return задачи дня или пустой Optional, если день не покрыт индексом
+     */
+    public Optional<List<GetTaskInfo>> find(LocalDate date) {
+        LocalDate from = indexedFrom;
+        if (from == null || date.isBefore(from)) {
+            return Optional.empty();
+        }
+        Day day = days.get(date.toEpochDay());
+        List<GetTaskInfo> tasks = day != null ? day.view : Collections.emptyList();
+        if (verify) {
+            List<GetTaskInfo> expected = ReplicaRoutingDataSource.readFromPrimary(
+                    () -> taskRepository.findByTaskDateOrderByTypePriority(date));
+            if (!sameTasks(expected, tasks)) {
+                log.warn("Индекс задач за {} расходится с базой данных: в индексе {}, в базе {}",
+                        date, ids(tasks), ids(expected));
+                return Optional.of(expected);
+            }
+        }
+        return Optional.of(tasks);
+    }
+
+    /**
+     * Сравнивает индекс с базой данных за указанный день.
+     *
+     * @param date дата
+     * @return true, если день не покрыт индексом или его содержимое совпадает с запросом к базе
+     */
+    public boolean isConsistent(LocalDate date) {
+        LocalDate from = indexedFrom;
+        if (from == null || date.isBefore(from)) {
+            return true;
+        }
+        Day day = days.get(date.toEpochDay());
+        List<GetTaskInfo> expected = ReplicaRoutingDataSource.readFromPrimary(
+                () -> taskRepository.findByTaskDateOrderByTypePriority(date));
+        return sameTasks(expected, day != null ? day.view : Collections.emptyList());
+    }
+
+    /**
+     * Строит индекс заново по данным репозитория при запуске приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild(LocalDate.now());
+        }
+    }
+
+    /**
+     * Строит индекс заново для задач начиная с указанной даты.
+     * Задачи читаются из основной базы: индекс, построенный по отстающей реплике, остался бы без последних
+     * изменений до следующего построения. Изменения, зафиксированные во время построения, применяются после него.
+     *
+     * @param from первый покрываемый день
+     */
+    public void rebuild(LocalDate from) {
+        lock.lock();
+        try {
+            Map<Long, List<Entry>> byDay = ReplicaRoutingDataSource.readFromPrimary(() -> readOnlyTransaction.execute(status -> {
+                Map<Long, List<Entry>> loaded = new HashMap<>();
+                try (Stream<TaskModel> tasks = taskRepository.streamTaskModelsFrom(from)) {
+                    tasks.forEach(task -> loaded
+                            .computeIfAbsent(task.getTaskDate().toEpochDay(), key -> new ArrayList<>())
+                            .add(toEntry(task)));
+                }
+                return loaded;
+            }));
+
+            days.clear();
+            byDay.forEach((epochDay, entries) -> days.put(epochDay, Day.of(entries)));
+            indexedFrom = from;
+            log.info("Индекс задач по дням построен: {} дней начиная с {}", days.size(), from);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Применяет изменение задачи после фиксации транзакции.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        lock.lock();
+        try {
+            if (indexedFrom == null) {
+                return;
+            }
+            TaskModel previous = event.getPrevious();
+            TaskModel current = event.getCurrent();
+            if (previous != null && covers(previous.getTaskDate())) {
+                updateDay(previous.getTaskDate().toEpochDay(), entries -> entries.removeIf(e -> e.id().equals(previous.getId())));
+            }
+            if (current != null && covers(current.getTaskDate())) {
+                Entry entry = toEntry(current);
+                updateDay(current.getTaskDate().toEpochDay(), entries -> {
+                    entries.removeIf(e -> e.id().equals(entry.id()));
+                    entries.add(entry);
+                });
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Применяет пакет созданных задач после фиксации транзакции: список каждого дня
+     * копируется и сортируется один раз на пакет, а не на каждую задачу.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksCreated(TasksCreatedEvent event) {
+        lock.lock();
+        try {
+            if (indexedFrom == null) {
+                return;
+            }
+            Map<Long, List<Entry>> byDay = new HashMap<>();
+            for (TaskModel task : event.getTasks()) {
+                if (covers(task.getTaskDate())) {
+                    byDay.computeIfAbsent(task.getTaskDate().toEpochDay(), key -> new ArrayList<>()).add(toEntry(task));
+                }
+            }
+            byDay.forEach((epochDay, added) -> {
+                Set<Long> ids = added.stream().map(Entry::id).collect(Collectors.toSet());
+                updateDay(epochDay, entries -> {
+                    entries.removeIf(e -> ids.contains(e.id()));
+                    entries.addAll(added);
+                });
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет из индекса задачи удаленного тега.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTagDeleted(TagDeletedEvent event) {
+        lock.lock();
+        try {
+            for (Long epochDay : List.copyOf(days.keySet())) {
+                Day day = days.get(epochDay);
+                if (day.entries.stream().anyMatch(e -> Objects.equals(e.tagId(), event.getTagId()))) {
+                    updateDay(epochDay, entries -> entries.removeIf(e -> Objects.equals(e.tagId(), event.getTagId())));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Обновляет заголовки и приоритеты задач после публикации нового снимка реестра типов
+     * и пересортировывает затронутые дни.
+     */
+    @EventListener
+    public void onTypesChanged(TypesChangedEvent event) {
+        lock.lock();
+        try {
+            for (Long epochDay : List.copyOf(days.keySet())) {
+                Day day = days.get(epochDay);
+                List<Entry> refreshed = day.entries.stream().map(this::refresh).toList();
+                if (!refreshed.equals(day.entries)) {
+                    days.put(epochDay, Day.of(refreshed));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean covers(LocalDate date) {
+        return date != null && !date.isBefore(indexedFrom);
+    }
+
+    /**
+     * Заменяет список задач дня измененной копией.
+     */
+    private void updateDay(long epochDay, Consumer<List<Entry>> change) {
+        Day day = days.get(epochDay);
+        List<Entry> entries = day != null ? new ArrayList<>(day.entries) : new ArrayList<>();
+        change.accept(entries);
+        if (entries.isEmpty()) {
+            days.remove(epochDay);
+        } else {
+            days.put(epochDay, Day.of(entries));
+        }
+    }
+
+    private Entry toEntry(TaskModel task) {
+        GetTaskInfo info = GetTaskInfo.builder()
+                .id(task.getId())
+                .name(task.getName())
+                .description(task.getDescription())
+                .taskDate(task.getTaskDate())
+                .typeTitle(typeRegistry.titleOf(task.getTypeId()))
+                .build();
+        return new Entry(task.getId(), task.getTagId(), task.getTypeId(), typeRegistry.levelOf(task.getTypeId()), info);
+    }
+
+    private Entry refresh(Entry entry) {
+        int level = typeRegistry.levelOf(entry.typeId());
+        String title = typeRegistry.titleOf(entry.typeId());
+        if (level == entry.level() && Objects.equals(title, entry.info().getTypeTitle())) {
+            return entry;
+        }
+        GetTaskInfo info = GetTaskInfo.builder()
+                .id(entry.info().getId())
+                .name(entry.info().getName())
+                .description(entry.info().getDescription())
+                .taskDate(entry.info().getTaskDate())
+                .typeTitle(title)
+                .build();
+        return new Entry(entry.id(), entry.tagId(), entry.typeId(), level, info);
+    }
+
+    private static boolean sameTasks(List<GetTaskInfo> expected, List<GetTaskInfo> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            GetTaskInfo e = expected.get(i);
+            GetTaskInfo a = actual.get(i);
+            if (!Objects.equals(e.getId(), a.getId())
+                    || !Objects.equals(e.getName(), a.getName())
+                    || !Objects.equals(e.getDescription(), a.getDescription())
+                    || !Objects.equals(e.getTaskDate(), a.getTaskDate())
+                    || !Objects.equals(e.getTypeTitle(), a.getTypeTitle())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Long> ids(List<GetTaskInfo> tasks) {
+        return tasks.stream().map(GetTaskInfo::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Задача в индексе: приоритет и тег нужны для сортировки и удаления по тегу,
+     * тип - для обновления при изменении реестра типов
+     */
+    private record Entry(Long id, Long tagId, Long typeId, int level, GetTaskInfo info) {
+    }
+
+    /**
+     * Неизменяемое содержимое одного дня
+     */
+    private static final class Day {
+        private final List<Entry> entries;
+        private final List<GetTaskInfo> view;
+
+        private Day(List<Entry> entries) {
+            this.entries = entries;
+            this.view = entries.stream().map(Entry::info).toList();
+        }
+
+        static Day of(List<Entry> entries) {
+            List<Entry> sorted = new ArrayList<>(entries);
+            sorted.sort(PRIORITY_ORDER);
+            return new Day(Collections.unmodifiableList(sorted));
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.billing.testtask.service.impl;
+
+import com.billing.testtask.dto.TaskIngestStatus;
+import com.billing.testtask.event.TasksCreatedEvent;
+import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.repository.TagRepository;
+import com.billing.testtask.repository.TaskRepository;
+import com.billing.testtask.service.TaskIngestService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация асинхронного создания задач (write-behind с групповой фиксацией).
+ * <p>
+ * Запрос проверяет задачу, берет идентификатор из блока последовательности task_id_seq
+ * (блоки по 50, как у pooled optimizer Hibernate, поэтому идентификаторы не пересекаются с выданными Hibernate)
+ * и кладет задачу в ограниченную очередь. Фоновый поток забирает из очереди все накопившиеся задачи
+ * (не больше task.ingest.group-size) и записывает их одной транзакцией пакетами JDBC.
+ * Если пакет не записался (например, тег удален после постановки в очередь), задачи записываются по одной,
+ * и ошибка отмечается только у некорректных.
+ * <p>
+ * При остановке приложения прием прекращается, а очередь дописывается до конца
+ * (не дольше task.ingest.shutdown-timeout) до закрытия пула соединений.
+ */
+@Slf4j
+@Service
+public class TaskIngestServiceImpl implements TaskIngestService, SmartLifecycle {
+
+    /**
+     * Шаг последовательности task_id_seq: значение v резервирует идентификаторы (v - 50, v]
+     */
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String INSERT_SQL = "INSERT INTO task (id, name, description, task_date, uid_tag, uid_type, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private final TaskRepository taskRepository;
+    private final TagRepository tagRepository;
+    private final TypeRegistry typeRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TagsCache tagsCache;
+
+    private final BlockingQueue<TaskModel> queue;
+    private final Cache<Long, TaskIngestStatus> statuses;
+
+    /**
+     * Прием задач: постановка в очередь идет под блокировкой чтения, остановка берет блокировку записи,
+     * поэтому после остановки приема в очередь не попадет ни одна задача
+     */
+    private final ReentrantReadWriteLock admission = new ReentrantReadWriteLock();
+    private final ReentrantLock idLock = new ReentrantLock();
+
+    private long nextId;
+    private long lastReservedId = -1;
+
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread writer;
+
+    @Value("${task.ingest.group-size:500}")
+    private int groupSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    @Value("${task.ingest.offer-timeout:50ms}")
+    private Duration offerTimeout;
+
+    @Value("${task.ingest.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+
+    @Autowired
+    public TaskIngestServiceImpl(TaskRepository taskRepository, TagRepository tagRepository, TypeRegistry typeRegistry,
+                                 JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 Validator validator, ApplicationEventPublisher eventPublisher,
+                                 TagsCache tagsCache, MeterRegistry meterRegistry,
+                                 @Value("${task.ingest.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${task.ingest.status-ttl:1h}") Duration statusTtl) {
+        this.taskRepository = taskRepository;
+        this.tagRepository = tagRepository;
+        this.typeRegistry = typeRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.tagsCache = tagsCache;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(statusTtl)
+                .maximumSize(queueCapacity * 10L)
+                .build();
+        Gauge.builder("task.ingest.queue", queue, BlockingQueue::size)
+                .description("Задачи, ожидающие асинхронной записи")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<Long> submit(TaskModel task) {
+        validate(task);
+
+        admission.readLock().lock();
+        try {
+            if (!accepting) {
+                return Optional.empty();
+            }
+            Long id = reserveId();
+            TaskModel queued = TaskModel.builder()
+                    .id(id)
+                    .name(task.getName())
+                    .description(task.getDescription())
+                    .taskDate(task.getTaskDate())
+                    .tagId(task.getTagId())
+                    .typeId(task.getTypeId())
+                    .build();
+            statuses.put(id, status(id, TaskIngestStatus.Status.QUEUED, null));
+            if (!queue.offer(queued, offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                statuses.invalidate(id);
+                return Optional.empty();
+            }
+            return Optional.of(id);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } finally {
+            admission.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<TaskIngestStatus> getStatus(Long id) {
+        TaskIngestStatus status = statuses.getIfPresent(id);
+        if (status != null) {
+            return Optional.of(status);
+        }
+        // Сведения о давно записанных задачах (или записанных до перезапуска) не хранятся
+        return taskRepository.existsById(id)
+                ? Optional.of(status(id, TaskIngestStatus.Status.CREATED, null))
+                : Optional.empty();
+    }
+
+    @Override
+    public void start() {
+        accepting = true;
+        running = true;
+        writer = Thread.ofPlatform().name("task-ingest-writer").start(this::drain);
+    }
+
+    /**
+     * Прекращает прием задач и дожидается записи очереди.
+     */
+    @Override
+    public void stop() {
+        admission.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            admission.writeLock().unlock();
+        }
+        running = false;
+        try {
+            writer.join(shutdownTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive() || !queue.isEmpty()) {
+            log.warn("Остановка: не записано задач из очереди: {}", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Останавливается после веб-сервера (он завершает прием запросов раньше),
+     * но до закрытия пула соединений
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Цикл фонового потока: забирает накопившиеся задачи и записывает их группой,
+     * после остановки - пока очередь не опустеет.
+     */
+    private void drain() {
+        List<TaskModel> group = new ArrayList<>(groupSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TaskModel first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, groupSize - 1);
+                write(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ошибка фоновой записи задач", e);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Записывает группу одной транзакцией; при ошибке - по одной задаче, чтобы отметить ошибкой только некорректные.
+     */
+    private void write(List<TaskModel> group) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(group));
+        } catch (RuntimeException e) {
+            if (group.size() > 1) {
+                log.warn("Группа из {} задач не записана, задачи записываются по одной: {}", group.size(), e.getMessage());
+                group.forEach(task -> write(List.of(task)));
+            } else {
+                TaskModel task = group.get(0);
+                log.warn("Задача {} не записана: {}", task.getId(), e.getMessage());
+                statuses.put(task.getId(), status(task.getId(), TaskIngestStatus.Status.FAILED, e.getMessage()));
+            }
+            return;
+        }
+
+        for (TaskModel task : group) {
+            statuses.put(task.getId(), status(task.getId(), TaskIngestStatus.Status.CREATED, null));
+        }
+    }
+
+    /**
+     * Вставка группы пакетами JDBC; одно событие создания на группу и сброс кэша тегов - после фиксации транзакции.
+     */
+    private void insert(List<TaskModel> group) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, group, jdbcBatchSize, (ps, task) -> {
+            ps.setLong(1, task.getId());
+            ps.setString(2, task.getName());
+            ps.setString(3, task.getDescription());
+            ps.setDate(4, Date.valueOf(task.getTaskDate()));
+            ps.setLong(5, task.getTagId());
+            ps.setLong(6, task.getTypeId());
+        });
+        Set<Long> tagIds = group.stream().map(TaskModel::getTagId).collect(Collectors.toSet());
+        tagsCache.evictAfterCommit(tagIds);
+        eventPublisher.publishEvent(new TasksCreatedEvent(List.copyOf(group)));
+    }
+
+    /**
+     * Проверки, которые при синхронном создании выполняет сохранение: обязательные поля, дата, тег и тип.
+     */
+    private void validate(TaskModel task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Задача не может быть пустой");
+        }
+        if (task.getId() != null) {
+            throw new IllegalArgumentException("Асинхронно можно только создать задачу");
+        }
+        Set<ConstraintViolation<TaskModel>> violations = validator.validate(task);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (task.getTaskDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Дата задачи должна быть сегодня или в будущем");
+        }
+        if (task.getTagId() == null) {
+            throw new IllegalArgumentException("Тег ID обязателен");
+        }
+        if (task.getTypeId() == null) {
+            throw new IllegalArgumentException("Тип задачи обязателен");
+        }
+        typeRegistry.require(task.getTypeId());
+        if (!tagRepository.existsById(task.getTagId())) {
+            throw new EntityNotFoundException("Тег не найден");
+        }
+    }
+
+    /**
+     * Следующий идентификатор из зарезервированного блока; новый блок берется из последовательности.
+     */
+    private Long reserveId() {
+        idLock.lock();
+        try {
+            if (nextId > lastReservedId) {
+                Long value = jdbcTemplate.queryForObject("SELECT nextval('task_id_seq')", Long.class);
+                lastReservedId = value;
+                nextId = value - ID_BLOCK_SIZE + 1;
+            }
+            return nextId++;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    private static TaskIngestStatus status(Long id, TaskIngestStatus.Status status, String error) {
+        return TaskIngestStatus.builder()
+                .id(id)
+                .status(status)
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,316 @@
+package com.billing.testtask.service.impl;
+
+import com.billing.testtask.config.ReplicaRoutingDataSource;
+import com.billing.testtask.dto.TaskSearchQuery;
+import com.billing.testtask.event.TagDeletedEvent;
+import com.billing.testtask.event.TaskChangedEvent;
+import com.billing.testtask.event.TasksCreatedEvent;
+import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Полнотекстовый индекс задач в памяти процесса (Lucene).
+ * <p>
+ * Индексирует название и описание задачи анализатором {@link TaskTextAnalyzer} и хранит все поля задачи,
+ * поэтому поиск не обращается к базе данных. Индекс строится из репозитория при запуске
+ * и обновляется после фиксации транзакций, изменивших задачи. Результаты ранжируются по BM25,
+ * совпадение в названии весит больше, чем в описании.
+ */
+@Slf4j
+@Component
+public class TaskSearchIndex {
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String DESCRIPTION = "description";
+    /**
+     * Название и описание вместе: все слова запроса должны встретиться в задаче, но не обязательно в одном поле
+     */
+    private static final String TEXT = "text";
+    private static final String TAG_ID = "tagId";
+    private static final String TYPE_ID = "typeId";
+    private static final String TASK_DATE = "taskDate";
+
+    private static final float NAME_BOOST = 2f;
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TaskTextAnalyzer analyzer = new TaskTextAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    /**
+     * Упорядочивает построение индекса и применение изменений (ReentrantLock: построение читает базу
+     * под блокировкой, и виртуальный поток не должен закрепляться за потоком-носителем)
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Value("${search.max-results:10000}")
+    private int maxResults = 10000;
+
+    @Autowired
+    public TaskSearchIndex(TaskRepository taskRepository, PlatformTransactionManager transactionManager)
+            throws IOException {
+        this.taskRepository = taskRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    /**
+     * Ищет задачи по тексту с фильтрами.
+     *
+     * @param query    текст и фильтры
+     * @param pageable номер и размер страницы (сортировка - по релевантности)
+     * @return страница задач в порядке убывания релевантности
+     * @throws IllegalArgumentException если текст пустой или страница лежит дальше search.max-results
+     */
+    public Page<TaskModel> search(TaskSearchQuery query, Pageable pageable) {
+        if (query.getText() == null || query.getText().isBlank()) {
+            throw new IllegalArgumentException("Текст запроса не может быть пустым");
+        }
+        if (pageable.getOffset() + pageable.getPageSize() > maxResults) {
+            throw new IllegalArgumentException("Поиск возвращает не больше " + maxResults + " задач, уточните запрос");
+        }
+        Query luceneQuery = toLuceneQuery(query);
+        if (luceneQuery == null) {
+            // Запрос из одних стоп-слов
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                int end = (int) pageable.getOffset() + pageable.getPageSize();
+                TopDocs top = searcher.search(luceneQuery, end);
+                StoredFields stored = searcher.storedFields();
+                List<TaskModel> content = new ArrayList<>();
+                ScoreDoc[] hits = top.scoreDocs;
+                for (int i = (int) pageable.getOffset(); i < hits.length; i++) {
+                    content.add(toTask(stored.document(hits[i].doc)));
+                }
+                return new PageImpl<>(content, pageable, searcher.count(luceneQuery));
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Строит индекс из репозитория при запуске приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Строит индекс заново по данным основной базы (не отстающей реплики).
+     * Изменения, зафиксированные во время построения, применяются после него.
+     */
+    public void rebuild() {
+        lock.lock();
+        try {
+            writer.deleteAll();
+            int count = ReplicaRoutingDataSource.readFromPrimary(() -> readOnlyTransaction.execute(status -> {
+                AtomicInteger indexed = new AtomicInteger();
+                try (Stream<TaskModel> tasks = taskRepository.streamAllTaskModels()) {
+                    tasks.forEach(task -> {
+                        index(task);
+                        indexed.incrementAndGet();
+                    });
+                }
+                return indexed.get();
+            }));
+            refresh();
+            log.info("Полнотекстовый индекс задач построен: {} задач", count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Применяет изменение задачи после фиксации транзакции.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        lock.lock();
+        try {
+            if (event.getCurrent() != null) {
+                index(event.getCurrent());
+            } else if (event.getPrevious() != null) {
+                writer.deleteDocuments(new Term(ID, String.valueOf(event.getPrevious().getId())));
+            }
+            refresh();
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Изменение задачи не применено к полнотекстовому индексу", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Индексирует пакет созданных задач после фиксации транзакции с одним обновлением поисковика на пакет.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksCreated(TasksCreatedEvent event) {
+        lock.lock();
+        try {
+            event.getTasks().forEach(this::index);
+            refresh();
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Пакет из {} задач не применен к полнотекстовому индексу", event.getTasks().size(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет из индекса задачи удаленного тега.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTagDeleted(TagDeletedEvent event) {
+        lock.lock();
+        try {
+            writer.deleteDocuments(LongField.newExactQuery(TAG_ID, event.getTagId()));
+            refresh();
+        } catch (IOException e) {
+            log.warn("Задачи тега {} не удалены из полнотекстового индекса", event.getTagId(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+    }
+
+    private Query toLuceneQuery(TaskSearchQuery query) {
+        QueryBuilder builder = new QueryBuilder(analyzer);
+        Query allWords = builder.createBooleanQuery(TEXT, query.getText(), BooleanClause.Occur.MUST);
+        if (allWords == null) {
+            return null;
+        }
+        BooleanQuery.Builder result = new BooleanQuery.Builder()
+                .add(allWords, BooleanClause.Occur.MUST);
+        Query inName = builder.createBooleanQuery(NAME, query.getText());
+        if (inName != null) {
+            result.add(new BoostQuery(inName, NAME_BOOST), BooleanClause.Occur.SHOULD);
+        }
+        Query inDescription = builder.createBooleanQuery(DESCRIPTION, query.getText());
+        if (inDescription != null) {
+            result.add(inDescription, BooleanClause.Occur.SHOULD);
+        }
+
+        if (query.getTagId() != null) {
+            result.add(LongField.newExactQuery(TAG_ID, query.getTagId()), BooleanClause.Occur.FILTER);
+        }
+        if (query.getTypeId() != null) {
+            result.add(LongField.newExactQuery(TYPE_ID, query.getTypeId()), BooleanClause.Occur.FILTER);
+        }
+        if (query.getFrom() != null || query.getTo() != null) {
+            long from = query.getFrom() != null ? query.getFrom().toEpochDay() : Long.MIN_VALUE;
+            long to = query.getTo() != null ? query.getTo().toEpochDay() : Long.MAX_VALUE;
+            result.add(LongField.newRangeQuery(TASK_DATE, from, to), BooleanClause.Occur.FILTER);
+        }
+        return result.build();
+    }
+
+    /**
+     * Добавляет или заменяет документ задачи (без обновления поисковика).
+     */
+    private void index(TaskModel task) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(task.getId()), Field.Store.YES));
+        String name = task.getName() != null ? task.getName() : "";
+        String description = task.getDescription() != null ? task.getDescription() : "";
+        document.add(new TextField(NAME, name, Field.Store.YES));
+        document.add(new TextField(DESCRIPTION, description, Field.Store.YES));
+        document.add(new TextField(TEXT, name + "\n" + description, Field.Store.NO));
+        if (task.getTagId() != null) {
+            document.add(new LongField(TAG_ID, task.getTagId(), Field.Store.YES));
+        }
+        if (task.getTypeId() != null) {
+            document.add(new LongField(TYPE_ID, task.getTypeId(), Field.Store.YES));
+        }
+        if (task.getTaskDate() != null) {
+            document.add(new LongField(TASK_DATE, task.getTaskDate().toEpochDay(), Field.Store.YES));
+        }
+        try {
+            writer.updateDocument(new Term(ID, String.valueOf(task.getId())), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void refresh() throws IOException {
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    private static TaskModel toTask(Document document) {
+        IndexableField date = document.getField(TASK_DATE);
+        return TaskModel.builder()
+                .id(Long.valueOf(document.get(ID)))
+                .name(document.get(NAME))
+                .description(document.get(DESCRIPTION))
+                .taskDate(date != null ? LocalDate.ofEpochDay(date.numericValue().longValue()) : null)
+                .tagId(longValue(document, TAG_ID))
+                .typeId(longValue(document, TYPE_ID))
+                .build();
+    }
+
+    private static Long longValue(Document document, String field) {
+        IndexableField value = document.getField(field);
+        return value != null ? value.numericValue().longValue() : null;
+    }
+}
@@ -1,23 +1,60 @@
 package com.billing.testtask.service.impl;
 
+import com.billing.testtask.dto.CursorPage;
+import com.billing.testtask.dto.DayTasks;
 import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.dto.TaskBatchResult;
+import com.billing.testtask.dto.TaskCursorSort;
+import com.billing.testtask.dto.TaskSearchQuery;
+import com.billing.testtask.dto.TypeInfo;
 import com.billing.testtask.entity.TagEntity;
 import com.billing.testtask.entity.TaskEntity;
 import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.event.TaskChangedEvent;
+import com.billing.testtask.event.TasksCreatedEvent;
 import com.billing.testtask.model.TaskModel;
 import com.billing.testtask.repository.TagRepository;
 import com.billing.testtask.repository.TaskRepository;
 import com.billing.testtask.repository.TypeRepository;
 import com.billing.testtask.service.TaskService;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Реализация сервиса для работы с задачами.
@@ -25,19 +62,57 @@ import java.util.stream.Collectors;
 @Service
 public class TaskServiceImpl implements TaskService {
 
+    /**
+     * Дата в курсоре порядка DATE, если последняя задача порции без даты
+     */
+    private static final String NULL_DATE = "null";
+
     private final TaskRepository taskRepository;
     private final TagRepository tagRepository;
     private final TypeRepository typeRepository;
+    private final TagsCache tagsCache;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskAgendaIndex agendaIndex;
+    private final TaskSearchIndex searchIndex;
+    private final TypeRegistry typeRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    @Value("${task.batch.max-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${task.range.max-days:366}")
+    private int maxRangeDays;
+
+    @Value("${task.top.max-k:1000}")
+    private int maxTopTasks;
+
+    @Value("${task.cursor.max-size:1000}")
+    private int maxCursorSize;
 
     @Autowired
-    public TaskServiceImpl(TaskRepository taskRepository, TagRepository tagRepository, TypeRepository typeRepository) {
+    public TaskServiceImpl(TaskRepository taskRepository, TagRepository tagRepository, TypeRepository typeRepository,
+                           TagsCache tagsCache, Validator validator, ApplicationEventPublisher eventPublisher,
+                           TaskAgendaIndex agendaIndex, TaskSearchIndex searchIndex, TypeRegistry typeRegistry) {
         this.taskRepository = taskRepository;
         this.tagRepository = tagRepository;
         this.typeRepository = typeRepository;
+        this.tagsCache = tagsCache;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.agendaIndex = agendaIndex;
+        this.searchIndex = searchIndex;
+        this.typeRegistry = typeRegistry;
     }
 
 
     @Override
+    @Transactional
     public Long save(TaskModel task) {
         // Валидация входных данных
         if (task == null) {
@@ -54,14 +129,17 @@ public class TaskServiceImpl implements TaskService {
         TagEntity tag = tagRepository.findById(task.getTagId())
                 .orElseThrow(() -> new EntityNotFoundException("Тег не найден"));
 
-        TypeEntity type = typeRepository.findById(task.getTypeId())
-                .orElseThrow(() -> new EntityNotFoundException("Тип не найден"));
+        // Тип проверяется по реестру в памяти, в задачу подставляется ссылка без запроса к базе
+        typeRegistry.require(task.getTypeId());
+        TypeEntity type = typeRepository.getReferenceById(task.getTypeId());
 
         // Создание/обновление задачи
         TaskEntity entity;
+        TaskModel previous = null;
         if (task.getId() != null) {
             entity = taskRepository.findById(task.getId())
                     .orElseThrow(() -> new EntityNotFoundException("Задача " + task.getId() + " не найдена"));
+            previous = convertToTaskModel(entity);
             entity.setName(task.getName());
             entity.setDescription(task.getDescription());
             entity.setTaskDate(task.getTaskDate());
@@ -76,71 +154,404 @@ public class TaskServiceImpl implements TaskService {
         entity.setTag(tag);
         entity.setType(type);
 
-        return taskRepository.save(entity).getId();
+        Long id = taskRepository.save(entity).getId();
+        touchTags(tag.getId(), previous != null ? previous.getTagId() : null);
+        eventPublisher.publishEvent(new TaskChangedEvent(previous, convertToTaskModel(entity)));
+        return id;
     }
 
     @Override
-    public void delete(Long id) {
-        if (!taskRepository.existsById(id)) {
-            throw new EntityNotFoundException("Задача с id: " + id + " не найдена.");
+    @Transactional
+    public List<TaskBatchResult> saveAll(List<TaskModel> tasks) {
+        if (tasks == null || tasks.isEmpty()) {
+            throw new IllegalArgumentException("Пакет задач не может быть пустым");
+        }
+        if (tasks.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Пакет превышает допустимый размер " + maxBatchSize);
+        }
+
+        // Теги и типы разрешаются одним запросом на весь пакет
+        Set<Long> tagIds = new HashSet<>();
+        Set<Long> typeIds = new HashSet<>();
+        for (TaskModel task : tasks) {
+            if (task != null) {
+                tagIds.add(task.getTagId());
+                typeIds.add(task.getTypeId());
+            }
+        }
+        Map<Long, TagEntity> tags = byId(tagRepository.findAllById(nonNull(tagIds)), TagEntity::getId);
+        Map<Long, TypeEntity> types = new HashMap<>();
+        for (Long typeId : nonNull(typeIds)) {
+            if (typeRegistry.find(typeId).isPresent() || typeRepository.existsById(typeId)) {
+                types.put(typeId, typeRepository.getReferenceById(typeId));
+            }
+        }
+
+        List<TaskBatchResult> results = new ArrayList<>(tasks.size());
+        List<TaskEntity> pending = new ArrayList<>(jdbcBatchSize);
+        List<TaskBatchResult> pendingResults = new ArrayList<>(jdbcBatchSize);
+        List<TaskModel> created = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            TaskModel task = tasks.get(i);
+            TaskBatchResult result = TaskBatchResult.builder().index(i).build();
+            results.add(result);
+
+            String error = validateForBatch(task, tags, types);
+            TaskEntity entity = null;
+            if (error == null) {
+                entity = TaskEntity.builder()
+                        .name(task.getName())
+                        .description(task.getDescription())
+                        .taskDate(task.getTaskDate())
+                        .tag(tags.get(task.getTagId()))
+                        .type(types.get(task.getTypeId()))
+                        .build();
+                error = describeViolations(validator.validate(entity));
+            }
+            if (error != null) {
+                result.setStatus(TaskBatchResult.Status.REJECTED);
+                result.setError(error);
+                continue;
+            }
+
+            pending.add(entity);
+            pendingResults.add(result);
+            if (pending.size() == jdbcBatchSize) {
+                flushBatch(pending, pendingResults, created);
+            }
+        }
+        flushBatch(pending, pendingResults, created);
+
+        touchTags(tags.keySet().toArray(Long[]::new));
+        if (!created.isEmpty()) {
+            eventPublisher.publishEvent(new TasksCreatedEvent(created));
         }
-        taskRepository.deleteById(id);
+        return results;
     }
 
     @Override
+    @Transactional
+    public void delete(Long id) {
+        TaskEntity entity = taskRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Задача с id: " + id + " не найдена."));
+        TaskModel previous = convertToTaskModel(entity);
+        taskRepository.delete(entity);
+        touchTags(previous.getTagId());
+        eventPublisher.publishEvent(TaskChangedEvent.deleted(previous));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<TaskModel> getAllTasks() {
-        return taskRepository.findAll().stream()
-                .map(this::convertToTaskModel)
-                .collect(Collectors.toList());
+        return taskRepository.findAllTaskModels();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void streamAllTasks(Consumer<TaskModel> consumer) {
+        try (Stream<TaskModel> tasks = taskRepository.streamAllTaskModels()) {
+            tasks.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<TaskModel> getAllTasks(Pageable pageable) {
-        return taskRepository.findAll(pageable)
-                .map(this::convertToTaskModel);
+        return taskRepository.findAllTaskModels(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<TaskModel> getAllTasks(String cursor, int size, TaskCursorSort sort) {
+        if (size < 1 || size > maxCursorSize) {
+            throw new IllegalArgumentException("Размер порции должен быть от 1 до " + maxCursorSize);
+        }
+        TaskCursorSort order = sort != null ? sort : TaskCursorSort.ID;
+        Pageable limit = PageRequest.of(0, size);
+
+        Slice<TaskModel> slice;
+        if (cursor == null || cursor.isBlank()) {
+            Sort firstPageSort = order == TaskCursorSort.DATE
+                    ? Sort.by(Sort.Order.asc("taskDate").nullsLast(), Sort.Order.asc("id"))
+                    : Sort.by("id");
+            slice = taskRepository.findFirstTaskModels(PageRequest.of(0, size, firstPageSort));
+        } else {
+            String[] parts = decodeCursor(cursor, order);
+            long afterId = Long.parseLong(parts[parts.length - 1]);
+            if (order == TaskCursorSort.ID) {
+                slice = taskRepository.findAfterId(afterId, limit);
+            } else if (NULL_DATE.equals(parts[1])) {
+                slice = taskRepository.findWithoutTaskDateAfterId(afterId, limit);
+            } else {
+                slice = withoutTaskDateAfter(taskRepository.findAfterTaskDate(LocalDate.parse(parts[1]), afterId, limit));
+            }
+        }
+
+        List<TaskModel> content = slice.getContent();
+        String nextCursor = slice.hasNext() && !content.isEmpty()
+                ? encodeCursor(content.get(content.size() - 1), order)
+                : null;
+
+        return CursorPage.<TaskModel>builder()
+                .content(content)
+                .nextCursor(nextCursor)
+                .hasNext(nextCursor != null)
+                .build();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<GetTaskInfo> getTasksByDateSortedByPriority(LocalDate date) {
         if (date == null) {
             throw new IllegalArgumentException("Дата не может быть пустой");
         }
 
-        return taskRepository.findByTaskDateOrderByTypePriority(date).stream()
-                .map(this::convertToGetTaskInfo)
-                .collect(Collectors.toList());
+        return agendaIndex.find(date)
+                .orElseGet(() -> typeRegistry.sortByPriority(taskRepository.findTaskModelsByTaskDate(date)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamTasksByDateRange(LocalDate from, LocalDate to, Integer perDayLimit, Consumer<DayTasks> consumer) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Начальная и конечная даты обязательны");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Конечная дата не может быть раньше начальной");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new IllegalArgumentException("Диапазон не может быть длиннее " + maxRangeDays + " дней");
+        }
+        if (perDayLimit != null && perDayLimit < 1) {
+            throw new IllegalArgumentException("Ограничение задач на день должно быть больше нуля");
+        }
+
+        try (Stream<GetTaskInfo> tasks = perDayLimit == null
+                ? taskRepository.streamByTaskDateRange(from, to)
+                : taskRepository.streamByTaskDateRange(from, to, perDayLimit)) {
+            LocalDate day = null;
+            List<GetTaskInfo> dayTasks = new ArrayList<>();
+            for (Iterator<GetTaskInfo> it = tasks.iterator(); it.hasNext(); ) {
+                GetTaskInfo task = it.next();
+                if (!task.getTaskDate().equals(day)) {
+                    if (day != null) {
+                        consumer.accept(new DayTasks(day, dayTasks));
+                    }
+                    day = task.getTaskDate();
+                    dayTasks = new ArrayList<>();
+                }
+                dayTasks.add(task);
+            }
+            if (day != null) {
+                consumer.accept(new DayTasks(day, dayTasks));
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<GetTaskInfo> getTopTasks(int k) {
+        if (k < 1 || k > maxTopTasks) {
+            throw new IllegalArgumentException("Количество задач должно быть от 1 до " + maxTopTasks);
+        }
+        LocalDate today = LocalDate.now();
+        // Типы по убыванию приоритета из снимка реестра, как и в остальных упорядочиваниях по приоритету;
+        // типы одного приоритета сливаются по (дата, id)
+        List<TypeInfo> types = typeRegistry.getAll(false);
+        Map<Long, String> titles = new HashMap<>();
+        Map<Integer, List<Long>> typesByLevel = new TreeMap<>(Comparator.reverseOrder());
+        for (TypeInfo type : types) {
+            titles.put(type.getId(), type.getTitle());
+            int level = type.getLevel() != null ? type.getLevel() : Integer.MIN_VALUE;
+            typesByLevel.computeIfAbsent(level, key -> new ArrayList<>()).add(type.getId());
+        }
+
+        List<TaskModel> top = new ArrayList<>(k);
+        for (List<Long> typeIds : typesByLevel.values()) {
+            int remaining = k - top.size();
+            if (remaining == 0) {
+                break;
+            }
+            List<TaskModel> sameLevel = new ArrayList<>();
+            for (Long typeId : typeIds) {
+                sameLevel.addAll(taskRepository.findUpcomingByType(typeId, today, PageRequest.of(0, remaining)));
+            }
+            sameLevel.sort(Comparator.comparing(TaskModel::getTaskDate).thenComparing(TaskModel::getId));
+            top.addAll(sameLevel.subList(0, Math.min(remaining, sameLevel.size())));
+        }
+        return top.stream()
+                .map(task -> GetTaskInfo.builder()
+                        .id(task.getId())
+                        .name(task.getName())
+                        .description(task.getDescription())
+                        .taskDate(task.getTaskDate())
+                        .typeTitle(titles.get(task.getTypeId()))
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public Page<TaskModel> searchTasks(TaskSearchQuery query, Pageable pageable) {
+        return searchIndex.search(query, pageable);
     }
 
     /**
-     * Преобразует сущность задачи в модель.
+     * Проверяет строку пакета до создания сущности.
      *
-     * @param entity сущность задачи
-     * @return модель задачи
+     * @return текст ошибки или null, если строка корректна
      */
-    private TaskModel convertToTaskModel(TaskEntity entity) {
-        return TaskModel.builder()
-                .id(entity.getId())
-                .name(entity.getName())
-                .description(entity.getDescription())
-                .taskDate(entity.getTaskDate())
-                .tagId(entity.getTag() != null ? entity.getTag().getId() : null)
-                .typeId(entity.getType() != null ? entity.getType().getId() : null)
-                .build();
+    private String validateForBatch(TaskModel task, Map<Long, TagEntity> tags, Map<Long, TypeEntity> types) {
+        if (task == null) {
+            return "Задача не может быть пустой";
+        }
+        if (task.getId() != null) {
+            return "Пакетная загрузка поддерживает только создание новых задач";
+        }
+        String violation = describeViolations(validator.validate(task));
+        if (violation != null) {
+            return violation;
+        }
+        if (task.getTagId() == null) {
+            return "Тег ID обязателен";
+        }
+        if (task.getTypeId() == null) {
+            return "Тип задачи обязателен";
+        }
+        if (!tags.containsKey(task.getTagId())) {
+            return "Тег не найден";
+        }
+        if (!types.containsKey(task.getTypeId())) {
+            return "Тип не найден";
+        }
+        return null;
+    }
+
+    /**
+     * Записывает накопленные задачи одним пакетом JDBC и очищает контекст персистентности,
+     * чтобы память не росла с размером запроса. Модели записанных задач добавляются в created
+     * для одного события на весь пакет.
+     */
+    private void flushBatch(List<TaskEntity> pending, List<TaskBatchResult> pendingResults, List<TaskModel> created) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        taskRepository.saveAll(pending);
+        taskRepository.flush();
+        for (int i = 0; i < pending.size(); i++) {
+            pendingResults.get(i).setId(pending.get(i).getId());
+            pendingResults.get(i).setStatus(TaskBatchResult.Status.CREATED);
+            created.add(convertToTaskModel(pending.get(i)));
+        }
+        pending.forEach(entityManager::detach);
+        pending.clear();
+        pendingResults.clear();
+    }
+
+    private static <T> String describeViolations(Set<ConstraintViolation<T>> violations) {
+        return violations.isEmpty()
+                ? null
+                : violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static Set<Long> nonNull(Collection<Long> ids) {
+        return ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> id) {
+        return entities.stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+
+    /**
+     * Отмечает изменение списка задач тегов: после фиксации транзакции сбрасывает закэшированные модели тегов.
+     *
+     * @param tagIds идентификаторы затронутых тегов (null пропускаются)
+     */
+    private void touchTags(Long... tagIds) {
+        Set<Long> ids = nonNull(Arrays.asList(tagIds));
+        if (ids.isEmpty()) {
+            return;
+        }
+        tagsCache.evictAfterCommit(ids);
+    }
+
+    /**
+     * Дополняет последнюю порцию задач с датой задачами без даты, которые идут после них.
+     *
+     * @param slice порция задач с датой
+     * @return та же порция, если за ней есть задачи с датой, иначе порция, дополненная задачами без даты
+     */
+    private Slice<TaskModel> withoutTaskDateAfter(Slice<TaskModel> slice) {
+        if (slice.hasNext()) {
+            return slice;
+        }
+        int size = slice.getSize();
+        int remaining = size - slice.getNumberOfElements();
+        Slice<TaskModel> withoutDate = taskRepository.findWithoutTaskDateAfterId(Long.MIN_VALUE,
+                PageRequest.of(0, Math.max(remaining, 1)));
+        List<TaskModel> content = new ArrayList<>(slice.getContent());
+        if (remaining == 0) {
+            return new SliceImpl<>(content, slice.getPageable(), withoutDate.hasContent());
+        }
+        content.addAll(withoutDate.getContent());
+        return new SliceImpl<>(content, slice.getPageable(), withoutDate.hasNext());
+    }
+
+    /**
+     * Формирует непрозрачный курсор по последней задаче порции.
+     *
+     * @param last последняя задача порции
+     * @param sort порядок обхода
+     * @return курсор в кодировке base64url
+     */
+    private String encodeCursor(TaskModel last, TaskCursorSort sort) {
+        String raw = sort == TaskCursorSort.DATE
+                ? sort.name() + ":" + (last.getTaskDate() != null ? last.getTaskDate() : NULL_DATE) + ":" + last.getId()
+                : sort.name() + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
-     * Преобразует сущность задачи в DTO с дополнительной информацией.
+     * Разбирает курсор и проверяет его соответствие порядку обхода.
+     *
+     * @param cursor курсор в кодировке base64url
+     * @param sort ожидаемый порядок обхода
+     * @return части курсора: порядок, [дата,] идентификатор
+     * @throws IllegalArgumentException если курсор некорректен
+     */
+    private String[] decodeCursor(String cursor, TaskCursorSort sort) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            int expectedLength = sort == TaskCursorSort.DATE ? 3 : 2;
+            if (parts.length != expectedLength || !sort.name().equals(parts[0])) {
+                throw new IllegalArgumentException("Курсор не соответствует порядку " + sort);
+            }
+            Long.parseLong(parts[parts.length - 1]);
+            if (sort == TaskCursorSort.DATE && !NULL_DATE.equals(parts[1])) {
+                LocalDate.parse(parts[1]);
+            }
+            return parts;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
+        }
+    }
+
+    /**
+     * Преобразует сущность задачи в модель.
      *
      * @param entity сущность задачи
-     * @return DTO с информацией о задаче
+     * @return модель задачи
      */
-    private GetTaskInfo convertToGetTaskInfo(TaskEntity entity) {
-        return GetTaskInfo.builder()
+    static TaskModel convertToTaskModel(TaskEntity entity) {
+        return TaskModel.builder()
                 .id(entity.getId())
                 .name(entity.getName())
                 .description(entity.getDescription())
                 .taskDate(entity.getTaskDate())
-                .typeTitle(entity.getType() != null ? entity.getType().getTitle() : "Нет типа")
+                .tagId(entity.getTag() != null ? entity.getTag().getId() : null)
+                .typeId(entity.getType() != null ? entity.getType().getId() : null)
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.billing.testtask.service.impl;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.en.PorterStemFilter;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.analysis.snowball.SnowballFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.tartarus.snowball.ext.RussianStemmer;
+
+/**
+ * Анализатор текста задач для смешанного русского и английского текста.
+ * <p>
+ * Разбивает текст по правилам Unicode, приводит к нижнему регистру, отбрасывает стоп-слова обоих языков
+ * и приводит слова к основе: Snowball-стеммер русского языка меняет только кириллические слова,
+ * стеммер Портера - только латинские, поэтому язык каждого слова определять не нужно.
+ */
+public class TaskTextAnalyzer extends Analyzer {
+
+    private static final CharArraySet STOP_WORDS = stopWords();
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        StandardTokenizer tokenizer = new StandardTokenizer();
+        TokenStream stream = new LowerCaseFilter(tokenizer);
+        stream = new StopFilter(stream, STOP_WORDS);
+        stream = new SnowballFilter(stream, new RussianStemmer());
+        stream = new PorterStemFilter(stream);
+        return new TokenStreamComponents(tokenizer, stream);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        return new LowerCaseFilter(in);
+    }
+
+    private static CharArraySet stopWords() {
+        CharArraySet words = new CharArraySet(RussianAnalyzer.getDefaultStopSet(), false);
+        words.addAll(EnglishAnalyzer.ENGLISH_STOP_WORDS_SET);
+        return CharArraySet.unmodifiableSet(words);
+    }
+}
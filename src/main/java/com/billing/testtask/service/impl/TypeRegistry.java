@@ -0,0 +1,269 @@
+package com.billing.testtask.service.impl;
+
+import com.billing.testtask.config.ReplicaRoutingDataSource;
+import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.dto.TypeCatalog;
+import com.billing.testtask.dto.TypeInfo;
+import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.event.TypesChangedEvent;
+import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.repository.TypeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Реестр типов задач в памяти процесса.
+ * <p>
+ * Хранит неизменяемый снимок всех типов (id → заголовок, приоритет) и заранее отсортированные списки.
+ * Снимок публикуется атомарной заменой ссылки, поэтому чтение не блокируется и не обращается к базе.
+ * Изменения типов должны проходить через {@link TypeServiceImpl}, который публикует новый снимок;
+ * тип, отсутствующий в снимке (например, добавленный другим экземпляром сервиса), ищется в базе,
+ * после чего снимок перечитывается мимо кэша запросов (локальный кэш не знает об изменениях других экземпляров).
+ */
+@Slf4j
+@Component
+public class TypeRegistry {
+
+    private static final String NO_TYPE_TITLE = "Нет типа";
+
+    private final TypeRepository typeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Блокировка перечитывания снимка (ReentrantLock вместо synchronized, чтобы чтение из базы
+     * не закрепляло виртуальный поток за потоком-носителем)
+     */
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Номер последнего опубликованного снимка (меняется под блокировкой перечитывания)
+     */
+    private long generation;
+
+    @Autowired
+    public TypeRegistry(TypeRepository typeRepository, ApplicationEventPublisher eventPublisher,
+                        EntityManagerFactory entityManagerFactory) {
+        this.typeRepository = typeRepository;
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Ищет тип в текущем снимке.
+     *
+     * @param id идентификатор типа
+     * @return тип или пустой Optional, если в снимке его нет
+     */
+    public Optional<TypeInfo> find(Long id) {
+        return Optional.ofNullable(current().byId.get(id));
+    }
+
+    /**
+     * Возвращает тип по идентификатору, при отсутствии в снимке проверяет базу данных.
+     *
+     * @param id идентификатор типа
+     * @return тип
+     * @throws EntityNotFoundException если тип не найден
+     */
+    public TypeInfo require(Long id) {
+        TypeInfo type = current().byId.get(id);
+        if (type != null) {
+            return type;
+        }
+        TypeEntity entity = typeRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Тип не найден"));
+        entityManagerFactory.getCache().unwrap(Cache.class).evictQueryRegion(TypeRepository.ORDERED_REGION);
+        reloadAfterCommit();
+        return toInfo(entity);
+    }
+
+    /**
+     * Все типы, отсортированные по приоритету.
+     *
+     * @param ascending true - по возрастанию приоритета, false - по убыванию
+     * @return неизменяемый список типов
+     */
+    public List<TypeInfo> getAll(boolean ascending) {
+        TypeCatalog catalog = current().catalog;
+        return ascending ? catalog.getAscending() : catalog.getDescending();
+    }
+
+    /**
+     * Версия снимка для условных запросов: меняется при добавлении, изменении и удалении любого типа.
+     * Вычисляется по идентификаторам и версиям строк, поэтому совпадает на всех экземплярах сервиса.
+     */
+    public String getVersion() {
+        return current().catalog.getVersion();
+    }
+
+    /**
+     * Текущий снимок целиком: версия и списки типов в нем согласованы между собой,
+     * а номер снимка позволяет отличить более новый снимок от устаревшего.
+     */
+    public TypeCatalog getCatalog() {
+        return current().catalog;
+    }
+
+    /**
+     * Приоритет типа (для неизвестного типа - наименьший).
+     */
+    public int levelOf(Long typeId) {
+        TypeInfo type = current().byId.get(typeId);
+        return type != null && type.getLevel() != null ? type.getLevel() : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Заголовок типа (для неизвестного типа - "Нет типа").
+     */
+    public String titleOf(Long typeId) {
+        TypeInfo type = current().byId.get(typeId);
+        return type != null ? type.getTitle() : NO_TYPE_TITLE;
+    }
+
+    /**
+     * Сортирует задачи по убыванию приоритета типа (при равенстве - по id)
+     * и дополняет их заголовком типа без обращения к таблице типов.
+     *
+     * @param tasks задачи
+     * @return задачи с информацией о типе в порядке приоритета
+     */
+    public List<GetTaskInfo> sortByPriority(List<TaskModel> tasks) {
+        Comparator<TaskModel> order = Comparator.<TaskModel>comparingInt(task -> levelOf(task.getTypeId()))
+                .reversed()
+                .thenComparing(TaskModel::getId);
+        return tasks.stream()
+                .sorted(order)
+                .map(task -> GetTaskInfo.builder()
+                        .id(task.getId())
+                        .name(task.getName())
+                        .description(task.getDescription())
+                        .taskDate(task.getTaskDate())
+                        .typeTitle(titleOf(task.getTypeId()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Перечитывает типы из базы данных и публикует новый снимок.
+     * Событие {@link TypesChangedEvent} публикуется после снятия блокировки: его обработчики берут свои блокировки,
+     * под которыми обращаются к реестру.
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            load();
+        } finally {
+            reloadLock.unlock();
+        }
+        eventPublisher.publishEvent(new TypesChangedEvent());
+    }
+
+    /**
+     * Перечитывает реестр после фиксации текущей транзакции (или сразу, если транзакции нет),
+     * чтобы в снимок не попали незафиксированные изменения.
+     */
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        boolean loaded = false;
+        reloadLock.lock();
+        try {
+            if (snapshot == null) {
+                load();
+                loaded = true;
+            }
+            current = snapshot;
+        } finally {
+            reloadLock.unlock();
+        }
+        if (loaded) {
+            eventPublisher.publishEvent(new TypesChangedEvent());
+        }
+        return current;
+    }
+
+    /**
+     * Читает типы из основной базы данных и заменяет снимок. Вызывается под блокировкой перечитывания.
+     * Перечитывание идет сразу после фиксации изменения типа, и отстающая реплика вернула бы снимок без него.
+     */
+    private void load() {
+        List<TypeEntity> types = ReplicaRoutingDataSource.readFromPrimary(typeRepository::findAllByOrderByLevelAsc);
+        String version = digest(types.stream()
+                .sorted(Comparator.comparing(TypeEntity::getId))
+                .map(type -> type.getId() + ":" + type.getVersion())
+                .collect(Collectors.joining(",")));
+        snapshot = new Snapshot(++generation, types.stream().map(TypeRegistry::toInfo).toList(), version);
+        log.debug("Опубликован снимок реестра типов: {} типов", types.size());
+    }
+
+    /**
+     * SHA-256 списка "id:версия" в шестнадцатеричном виде: в отличие от String.hashCode
+     * совпадение версий разных наборов типов (и устаревший ответ 304) практически исключено.
+     */
+    private static String digest(String versions) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(versions.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static TypeInfo toInfo(TypeEntity entity) {
+        return new TypeInfo(entity.getId(), entity.getTitle(), entity.getLevel());
+    }
+
+    /**
+     * Неизменяемый снимок реестра
+     */
+    private static final class Snapshot {
+        private final Map<Long, TypeInfo> byId;
+        private final TypeCatalog catalog;
+
+        private Snapshot(long generation, List<TypeInfo> ascending, String version) {
+            this.byId = ascending.stream().collect(Collectors.toUnmodifiableMap(TypeInfo::getId, Function.identity()));
+            List<TypeInfo> descending = new ArrayList<>(ascending);
+            Collections.reverse(descending);
+            this.catalog = new TypeCatalog(generation, version, List.copyOf(ascending), List.copyOf(descending));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.billing.testtask.service.impl;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.billing.testtask.dto.EncodedResponse;
+import com.billing.testtask.dto.TypeCatalog;
+import com.billing.testtask.dto.TypeInfo;
+import com.billing.testtask.event.TypesChangedEvent;
+import com.billing.testtask.service.TypeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Готовые ответы списка типов (GET /api/types) для обоих порядков сортировки.
+ * <p>
+ * JSON сериализуется и сжимается (gzip, Brotli) один раз на снимок реестра типов и пересобирается
+ * только по {@link TypesChangedEvent}; запрос выбирает кодировку по Accept-Encoding и пишет готовые байты.
+ * ETag и тела обоих порядков строятся из одного снимка реестра, а пересборка по устаревшему снимку
+ * (завершившаяся позже пересборки по более новому) не заменяет опубликованные ответы.
+ */
+@Slf4j
+@Component
+public class TypeResponseCache {
+
+    /**
+     * Кодировка содержимого ответа
+     */
+    public enum ContentCoding {
+        BROTLI("br"),
+        GZIP("gzip"),
+        IDENTITY("identity");
+
+        private final String token;
+
+        ContentCoding(String token) {
+            this.token = token;
+        }
+
+        public String getToken() {
+            return token;
+        }
+    }
+
+    private final TypeService typeService;
+    private final ObjectMapper objectMapper;
+    private final boolean brotliAvailable;
+
+    private final AtomicReference<Responses> responses = new AtomicReference<>();
+
+    @Autowired
+    public TypeResponseCache(TypeService typeService, ObjectMapper objectMapper) {
+        this.typeService = typeService;
+        this.objectMapper = objectMapper;
+        this.brotliAvailable = Brotli4jLoader.isAvailable();
+        if (!brotliAvailable) {
+            log.info("Brotli недоступен на этой платформе, список типов сжимается только gzip",
+                    Brotli4jLoader.getUnavailabilityCause());
+        }
+    }
+
+    /**
+     * Готовый ответ списка типов.
+     *
+     * @param ascending true - по возрастанию приоритета, false - по убыванию
+     * @return сериализованный и сжатый список типов
+     */
+    public EncodedResponse get(boolean ascending) {
+        Responses current = responses.get();
+        if (current == null) {
+            current = rebuild();
+        }
+        return ascending ? current.ascending : current.descending;
+    }
+
+    /**
+     * Пересобирает ответы после публикации нового снимка реестра типов.
+     */
+    @EventListener
+    public void onTypesChanged(TypesChangedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Выбирает кодировку по заголовку Accept-Encoding: наибольшее q среди доступных вариантов,
+     * при равенстве - Brotli, затем gzip.
+     *
+     * @param acceptEncoding значение заголовка Accept-Encoding (может быть null)
+     * @param response       готовый ответ
+     * @return кодировка ответа
+     */
+    public static ContentCoding negotiate(String acceptEncoding, EncodedResponse response) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return ContentCoding.IDENTITY;
+        }
+        double brotli = response.getBrotli() != null ? quality(acceptEncoding, ContentCoding.BROTLI.token) : 0;
+        double gzip = response.getGzip() != null ? quality(acceptEncoding, ContentCoding.GZIP.token) : 0;
+        if (brotli > 0 && brotli >= gzip) {
+            return ContentCoding.BROTLI;
+        }
+        return gzip > 0 ? ContentCoding.GZIP : ContentCoding.IDENTITY;
+    }
+
+    /**
+     * Тело ответа в выбранной кодировке.
+     */
+    public static byte[] body(EncodedResponse response, ContentCoding coding) {
+        return switch (coding) {
+            case BROTLI -> response.getBrotli();
+            case GZIP -> response.getGzip();
+            case IDENTITY -> response.getIdentity();
+        };
+    }
+
+    /**
+     * Строит ответы по текущему снимку и публикует их, только если опубликованные построены по более старому снимку.
+     *
+     * @return опубликованные ответы (построенные или более новые)
+     */
+    private Responses rebuild() {
+        TypeCatalog catalog = typeService.getCatalog();
+        String etag = "W/\"" + catalog.getVersion() + "\"";
+        Responses rebuilt = new Responses(catalog.getGeneration(),
+                encode(etag, catalog.getAscending()), encode(etag, catalog.getDescending()));
+        return responses.accumulateAndGet(rebuilt, (published, candidate) ->
+                published == null || candidate.generation() > published.generation() ? candidate : published);
+    }
+
+    private EncodedResponse encode(String etag, List<TypeInfo> types) {
+        try {
+            byte[] identity = objectMapper.writeValueAsBytes(types);
+            byte[] gzip = smallerOrNull(gzip(identity), identity);
+            byte[] brotli = brotliAvailable
+                    ? smallerOrNull(Encoder.compress(identity, new Encoder.Parameters().setQuality(11)), identity)
+                    : null;
+            return new EncodedResponse(etag, identity, gzip, brotli);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] smallerOrNull(byte[] compressed, byte[] identity) {
+        return compressed.length < identity.length ? compressed : null;
+    }
+
+    /**
+     * Значение q для кодировки из Accept-Encoding (с учетом "*"), 0 - кодировка не принимается.
+     */
+    private static double quality(String acceptEncoding, String token) {
+        double wildcard = 0;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String name = params[0].trim();
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase(token)) {
+                return q;
+            }
+            if (name.equals("*")) {
+                wildcard = q;
+            }
+        }
+        return wildcard;
+    }
+
+    private record Responses(long generation, EncodedResponse ascending, EncodedResponse descending) {
+    }
+}
@@ -1,17 +1,22 @@
 package com.billing.testtask.service.impl;
 
+import com.billing.testtask.dto.TypeCatalog;
 import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.model.TypeModel;
+import com.billing.testtask.repository.TaskRepository;
 import com.billing.testtask.repository.TypeRepository;
 import com.billing.testtask.service.TypeService;
+import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Реализация сервиса для работы с типами задач.
- * Содержит логику получения типов задач из репозитория и кэширования результатов.
+ * Чтение обслуживается реестром типов в памяти; изменения сохраняются в репозиторий,
+ * после чего реестр публикует новый снимок.
  */
 @Service
 public class TypeServiceImpl implements TypeService {
@@ -19,6 +24,12 @@ public class TypeServiceImpl implements TypeService {
     @Autowired
     private TypeRepository typeRepository;
 
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TypeRegistry typeRegistry;
+
     /**
      * Получить все типы задач с возможностью сортировки по приоритету.
      *
@@ -27,11 +38,66 @@ public class TypeServiceImpl implements TypeService {
      *                  Если false, типы будут отсортированы по убыванию приоритета.
      * @return список всех типов задач, отсортированных в соответствии с параметром ascending.
      */
-    @Cacheable(cacheNames = "typesCache", key = "{#root.methodName, #ascending}")
     @Override
     public List<TypeEntity> getAllTypes(boolean ascending) {
-        return ascending ?
-                typeRepository.findAllByOrderByLevelDesc() :
-                typeRepository.findAllByOrderByLevelAsc();
+        return typeRegistry.getAll(ascending).stream()
+                .map(type -> TypeEntity.builder()
+                        .id(type.getId())
+                        .title(type.getTitle())
+                        .level(type.getLevel())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public TypeCatalog getCatalog() {
+        return typeRegistry.getCatalog();
+    }
+
+    /**
+     * Создает или обновляет тип задачи.
+     *
+     * @param type модель типа
+     * @return сохраненная модель типа
+     */
+    @Override
+    public TypeModel save(TypeModel type) {
+        TypeEntity entity;
+        if (type.getId() != null) {
+            entity = typeRepository.findById(type.getId())
+                    .orElseThrow(() -> new EntityNotFoundException("Тип[id=" + type.getId() + "] не найден в базе данных"));
+            entity.setTitle(type.getTitle());
+            entity.setLevel(type.getLevel());
+        } else {
+            entity = TypeEntity.builder()
+                    .title(type.getTitle())
+                    .level(type.getLevel())
+                    .build();
+        }
+        typeRepository.save(entity);
+        typeRegistry.reloadAfterCommit();
+
+        return TypeModel.builder()
+                .id(entity.getId())
+                .title(entity.getTitle())
+                .level(entity.getLevel())
+                .build();
+    }
+
+    /**
+     * Удаляет тип задачи, если он не используется задачами.
+     *
+     * @param id идентификатор типа
+     */
+    @Override
+    public void delete(Long id) {
+        if (!typeRepository.existsById(id)) {
+            throw new EntityNotFoundException("Тип[id=" + id + "] не найден в базе данных");
+        }
+        if (taskRepository.existsByTypeId(id)) {
+            throw new IllegalStateException("Тип[id=" + id + "] используется задачами");
+        }
+        typeRepository.deleteById(id);
+        typeRegistry.reloadAfterCommit();
     }
 }
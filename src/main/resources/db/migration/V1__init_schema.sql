@@ -1,3 +1,5 @@
+-- Исходная схема сервиса (ранее docker-entrypoint-initdb.d/script.sql).
+-- Для уже существующих баз применяется baseline на версии 1, и этот скрипт пропускается.
 create table if not exists tag
 (
     id    bigint generated by default as identity
@@ -5,9 +7,6 @@ create table if not exists tag
     title varchar(255)
 );
 
-alter table tag
-    owner to postgres;
-
 create table if not exists type
 (
     id    bigint generated by default as identity
@@ -16,9 +15,6 @@ create table if not exists type
     title varchar(255)
 );
 
-alter table type
-    owner to postgres;
-
 create table if not exists task
 (
     id          bigint generated by default as identity
@@ -32,12 +28,8 @@ create table if not exists task
     uid_type    bigint not null
         constraint fk_task_typeuid
             references type
-
 );
 
-alter table task
-    owner to postgres;
-
 -- тестовые начальные данные
 INSERT INTO tag(title)
 VALUES ('Backend'),
@@ -48,4 +40,4 @@ INSERT INTO type(title, level)
 VALUES ('обычная', 40),
        ('важная', 60),
        ('срочная', 90),
-       ('по возможности', 0);
\ No newline at end of file
+       ('по возможности', 0);
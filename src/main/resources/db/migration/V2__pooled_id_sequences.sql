@@ -0,0 +1,20 @@
+-- Идентификаторы выдаются Hibernate блоками по 50 (pooled optimizer, allocationSize = 50).
+-- Identity-колонки заменяются явными последовательностями с шагом 50: Hibernate проверяет их
+-- наличие при валидации схемы, а вставки в обход Hibernate берут значения из той же последовательности.
+-- Следующее значение последовательности выставляется не меньше max(id) + 50,
+-- так как pooled optimizer выдает идентификаторы из диапазона (значение - 50, значение].
+
+alter table tag alter column id drop identity if exists;
+create sequence if not exists tag_id_seq increment by 50 owned by tag.id;
+alter table tag alter column id set default nextval('tag_id_seq');
+select setval('tag_id_seq', coalesce((select max(id) from tag), 0) + 50, false);
+
+alter table type alter column id drop identity if exists;
+create sequence if not exists type_id_seq increment by 50 owned by type.id;
+alter table type alter column id set default nextval('type_id_seq');
+select setval('type_id_seq', coalesce((select max(id) from type), 0) + 50, false);
+
+alter table task alter column id drop identity if exists;
+create sequence if not exists task_id_seq increment by 50 owned by task.id;
+alter table task alter column id set default nextval('task_id_seq');
+select setval('task_id_seq', coalesce((select max(id) from task), 0) + 50, false);
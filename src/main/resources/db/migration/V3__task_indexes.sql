@@ -0,0 +1,8 @@
+-- Задачи за дату (findByTaskDateOrderByTypePriority): тип берется из индекса для соединения с type
+create index if not exists idx_task_date_type on task (task_date, uid_type);
+
+-- Курсорная пагинация по (task_date, id)
+create index if not exists idx_task_date_id on task (task_date, id);
+
+-- Задачи тега (findByTagIdOrderByTypePriority, findTaskModelsByTagId) и каскадное удаление тега
+create index if not exists idx_task_tag on task (uid_tag, id);
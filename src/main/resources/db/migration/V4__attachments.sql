@@ -0,0 +1,26 @@
+-- Содержимое вложений хранится один раз на SHA-256 (attachment_blob), вложения задач ссылаются на него.
+-- ref_count - число вложений, ссылающихся на содержимое; содержимое с ref_count = 0 удаляется вместе с файлом.
+create table if not exists attachment_blob
+(
+    sha256     char(64) primary key,
+    size       bigint    not null,
+    ref_count  integer   not null,
+    updated_at timestamp not null default now()
+);
+
+-- Внешнего ключа на task нет: вложения удаленных задач освобождаются приложением,
+-- чтобы уменьшить ref_count и удалить файлы, на которые больше нет ссылок
+create table if not exists attachment
+(
+    id         bigint primary key,
+    task_id    bigint       not null,
+    name       varchar(255) not null,
+    sha256     char(64)     not null references attachment_blob (sha256),
+    created_at timestamp    not null default now(),
+    constraint uq_attachment_task_name unique (task_id, name)
+);
+
+create sequence if not exists attachment_id_seq increment by 50 owned by attachment.id;
+alter table attachment alter column id set default nextval('attachment_id_seq');
+
+create index if not exists idx_attachment_sha256 on attachment (sha256);
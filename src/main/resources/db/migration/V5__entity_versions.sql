@@ -0,0 +1,7 @@
+-- Версии строк для оптимистической блокировки (@Version) и условных запросов (ETag)
+alter table tag add column if not exists version bigint not null default 0;
+alter table task add column if not exists version bigint not null default 0;
+alter table type add column if not exists version bigint not null default 0;
+
+-- Агрегатная версия задач тега: увеличивается при создании, изменении и удалении любой задачи тега
+alter table tag add column if not exists tasks_version bigint not null default 0;
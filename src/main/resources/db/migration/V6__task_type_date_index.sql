@@ -0,0 +1,3 @@
+-- Ближайшие задачи типа (findUpcomingByType для /api/tasks/top): диапазон по дате внутри типа
+-- читается в порядке (task_date, id) и обрывается на LIMIT
+create index if not exists idx_task_type_date on task (uid_type, task_date, id);
@@ -0,0 +1,3 @@
+-- Версия задач тега вычисляется по таблице task (TagRepository.findVersionById):
+-- счетчик в строке тега блокировал ее при каждом изменении задачи
+alter table tag drop column if exists tasks_version;
@@ -0,0 +1,3 @@
+-- Уникальный индекс заголовка тега из прежней редакции V3: в базах с повторяющимися заголовками
+-- миграция не проходила, а повтор при сохранении тега возвращал ошибку 500
+drop index if exists uq_tag_title;
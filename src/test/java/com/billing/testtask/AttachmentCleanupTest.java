@@ -0,0 +1,156 @@
+package com.billing.testtask;
+
+import com.billing.testtask.dto.AttachmentInfo;
+import com.billing.testtask.entity.TagEntity;
+import com.billing.testtask.entity.TaskEntity;
+import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.repository.AttachmentBlobRepository;
+import com.billing.testtask.repository.AttachmentRepository;
+import com.billing.testtask.repository.TagRepository;
+import com.billing.testtask.repository.TaskRepository;
+import com.billing.testtask.repository.TypeRepository;
+import com.billing.testtask.service.AttachmentService;
+import com.billing.testtask.service.AttachmentStore;
+import com.billing.testtask.service.impl.AttachmentServiceImpl;
+import com.billing.testtask.service.impl.TaskServiceImpl;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Интеграционные тесты освобождения вложений {@link AttachmentServiceImpl}.
+ * Вложения освобождаются после фиксации транзакции, поэтому тест работает без откатываемой
+ * транзакции и удаляет созданные данные сам.
+ */
+@SpringBootTest
+class AttachmentCleanupTest {
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private AttachmentBlobRepository blobRepository;
+
+    @Autowired
+    private AttachmentStore attachmentStore;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private TypeRepository typeRepository;
+
+    private TagEntity tag;
+    private TypeEntity type;
+    private TaskEntity task;
+
+    @BeforeEach
+    void setUp() {
+        tag = tagRepository.save(TagEntity.builder().title("cleanup-tag-" + System.nanoTime()).build());
+        type = typeRepository.save(TypeEntity.builder().title("cleanup-type").level(1).build());
+        task = taskRepository.save(TaskEntity.builder()
+                .name("cleanup")
+                .taskDate(LocalDate.now())
+                .tag(tag)
+                .type(type)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        attachmentRepository.deleteAll(attachmentRepository.findByTaskId(task.getId()));
+        taskRepository.findById(task.getId()).ifPresent(taskRepository::delete);
+        tagRepository.deleteById(tag.getId());
+        typeRepository.deleteById(type.getId());
+    }
+
+    /**
+     * Тестирует, что после фиксации удаления задачи ее вложения удалены и больше не выдаются,
+     * а содержимое без ссылок удалено из таблицы и с диска.
+     */
+    @Test
+    @DisplayName("Удаление задачи - вложения освобождаются после фиксации")
+    void deleteTask_ShouldReleaseAttachmentsAfterCommit() throws Exception {
+        byte[] content = ("cleanup " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        AttachmentInfo stored = attachmentService.store(task.getId(), "a.txt",
+                new ByteArrayInputStream(content), content.length);
+        assertEquals(content.length, stored.getSize());
+
+        taskService.delete(task.getId());
+
+        assertTrue(attachmentRepository.findByTaskId(task.getId()).isEmpty());
+        assertThrows(EntityNotFoundException.class, () -> attachmentService.find(task.getId(), "a.txt"));
+        assertFalse(blobRepository.existsById(stored.getSha256()));
+        assertFalse(Files.exists(attachmentStore.locate(stored.getSha256())));
+    }
+
+    /**
+     * Тестирует, что замена вложения удаляет прежнее содержимое без ссылок, а новое остается.
+     */
+    @Test
+    @DisplayName("Замена вложения - прежнее содержимое удаляется")
+    void replaceAttachment_ShouldPurgePreviousContent() throws Exception {
+        byte[] first = ("first " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        byte[] second = ("second " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        AttachmentInfo previous = attachmentService.store(task.getId(), "a.txt",
+                new ByteArrayInputStream(first), first.length);
+        AttachmentInfo current = attachmentService.store(task.getId(), "a.txt",
+                new ByteArrayInputStream(second), second.length);
+
+        assertFalse(blobRepository.existsById(previous.getSha256()));
+        assertFalse(Files.exists(attachmentStore.locate(previous.getSha256())));
+        assertEquals(1, blobRepository.findById(current.getSha256()).orElseThrow().getRefCount());
+        assertEquals(attachmentStore.locate(current.getSha256()), attachmentService.find(task.getId(), "a.txt").getPath());
+
+        taskService.delete(task.getId());
+        assertFalse(blobRepository.existsById(current.getSha256()));
+    }
+
+    /**
+     * Тестирует, что содержимое читается вне транзакции и помещается в хранилище после фиксации метаданных.
+     */
+    @Test
+    @DisplayName("Загрузка вложения - содержимое читается вне транзакции")
+    void store_ShouldStageOutsideTransaction() throws Exception {
+        byte[] content = ("staged " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        InputStream stream = new ByteArrayInputStream(content) {
+            @Override
+            public int read(byte[] b, int off, int len) {
+                assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+                return super.read(b, off, len);
+            }
+        };
+
+        AttachmentInfo stored = attachmentService.store(task.getId(), "a.txt", stream, content.length);
+
+        assertTrue(Files.exists(attachmentStore.locate(stored.getSha256())));
+        assertEquals(1, blobRepository.findById(stored.getSha256()).orElseThrow().getRefCount());
+        assertThrows(EntityNotFoundException.class, () -> attachmentService.store(-1L, "a.txt",
+                new ByteArrayInputStream(content), content.length));
+        assertEquals(1, blobRepository.findById(stored.getSha256()).orElseThrow().getRefCount());
+
+        taskService.delete(task.getId());
+    }
+}
@@ -0,0 +1,231 @@
+package com.billing.testtask;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочное сравнение режимов обработки запросов: пул платформенных потоков Tomcat
+ * и виртуальные потоки (spring.threads.virtual.enabled).
+ * <p>
+ * Для каждого режима поднимает приложение с одинаковым размером пула соединений и лимитом потоков Tomcat,
+ * нагружает его смешанным потоком блокирующих запросов (страница задач из базы, задачи за дату,
+ * загрузка файла-вложения) и выводит пропускную способность и задержки p50/p99.
+ * Запуск: {@code ./gradlew loadComparison} (нужна база данных из application.properties),
+ * результат - build/results/loadtest/results.json.
+ * <p>
+ * Параметры (системные свойства): load.clients (по умолчанию 400), load.seconds (20), load.warmup (5),
+ * load.tomcatThreads (50), load.poolSize (10).
+ */
+public class LoadComparison {
+
+    private static final String AUTH = "Basic " + Base64.getEncoder()
+            .encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+    private static final String BOUNDARY = "load-comparison-boundary";
+
+    private final int clients = Integer.getInteger("load.clients", 400);
+    private final int seconds = Integer.getInteger("load.seconds", 20);
+    private final int warmup = Integer.getInteger("load.warmup", 5);
+    private final int tomcatThreads = Integer.getInteger("load.tomcatThreads", 50);
+    private final int poolSize = Integer.getInteger("load.poolSize", 10);
+
+    private final byte[] uploadBody = multipartBody(64 * 1024);
+
+    public static void main(String[] args) throws Exception {
+        LoadComparison comparison = new LoadComparison();
+        List<Result> results = new ArrayList<>();
+        results.add(comparison.run(false));
+        results.add(comparison.run(true));
+
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            json.append("  ").append(results.get(i).toJson()).append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        json.append("]\n");
+        Path output = Path.of(System.getProperty("load.output", "build/results/loadtest/results.json"));
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, json);
+
+        System.out.println();
+        results.forEach(result -> System.out.println(result.toLine()));
+        System.out.println("Результат сохранен в " + output.toAbsolutePath());
+    }
+
+    /**
+     * Запускает приложение в указанном режиме и нагружает его.
+     */
+    private Result run(boolean virtualThreads) throws Exception {
+        Path uploads = Files.createTempDirectory("load-uploads");
+        // Аргументы командной строки переопределяют application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TesttaskApplication.class)
+                .run("--server.port=0",
+                        "--server.ssl.enabled=false",
+                        "--management.server.port=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.orm.jpa=WARN",
+                        "--logging.level.org.springframework.transaction=WARN",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=" + tomcatThreads,
+                        "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "--upload.path=" + uploads);
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return load(virtualThreads, "http://localhost:" + port);
+        } finally {
+            context.close();
+        }
+    }
+
+    private Result load(boolean virtualThreads, String baseUrl) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        long taskId = createTask(client, baseUrl);
+        List<HttpRequest> requests = List.of(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/api/tasks/pagination?size=20"))
+                        .header("Authorization", AUTH).GET().build(),
+                HttpRequest.newBuilder(URI.create(baseUrl + "/api/tasks/by-date?date=" + LocalDate.now().plusDays(1)))
+                        .header("Authorization", AUTH).GET().build(),
+                HttpRequest.newBuilder(URI.create(baseUrl + "/api/tasks/" + taskId + "/upload"))
+                        .header("Authorization", AUTH)
+                        .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(uploadBody)).build());
+
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(warmup).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+
+        List<Future<long[]>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int offset = c;
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    for (int i = offset; System.nanoTime() < end; i++) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(requests.get(i % requests.size()),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        long finish = System.nanoTime();
+                        if (start >= warmupEnd && finish <= end) {
+                            if (count == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, count * 2);
+                            }
+                            latencies[count++] = finish - start;
+                        }
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+
+        long[] all = futures.stream().map(LoadComparison::get).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(virtualThreads ? "virtual" : "platform", clients, tomcatThreads, poolSize,
+                all.length / (double) seconds, percentile(all, 0.50), percentile(all, 0.99), errors.get());
+    }
+
+    /**
+     * Создает тег и задачу, к которой загружаются вложения.
+     */
+    private static long createTask(HttpClient client, String baseUrl) throws Exception {
+        String tag = post(client, baseUrl + "/api/tags", "{\"title\": \"load-comparison\"}");
+        String tagId = firstId(tag);
+        String typeId = firstId(client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/types"))
+                .header("Authorization", AUTH).GET().build(), HttpResponse.BodyHandlers.ofString()).body());
+        String task = post(client, baseUrl + "/api/tasks", "{\"name\": \"load\", \"description\": \"load\", "
+                + "\"taskDate\": \"" + LocalDate.now().plusDays(1) + "\", \"tagId\": " + tagId + ", \"typeId\": " + typeId + "}");
+        return Long.parseLong(task.trim());
+    }
+
+    private static String firstId(String json) {
+        return json.replaceFirst("(?s)^.*?\"id\"\\s*:\\s*(\\d+).*$", "$1");
+    }
+
+    private static String post(HttpClient client, String url, String json) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url))
+                        .header("Authorization", AUTH)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(url + ": " + response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    private static long[] get(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static byte[] multipartBody(int size) {
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) 'x');
+        String head = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"load.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n";
+        String tail = "\r\n--" + BOUNDARY + "--\r\n";
+        byte[] body = new byte[head.length() + size + tail.length()];
+        System.arraycopy(head.getBytes(StandardCharsets.US_ASCII), 0, body, 0, head.length());
+        System.arraycopy(content, 0, body, head.length(), size);
+        System.arraycopy(tail.getBytes(StandardCharsets.US_ASCII), 0, body, head.length() + size, tail.length());
+        return body;
+    }
+
+    private record Result(String mode, int clients, int tomcatThreads, int poolSize,
+                          double throughput, double p50, double p99, long errors) {
+
+        String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"mode\": \"%s\", \"clients\": %d, \"tomcatThreads\": %d, \"poolSize\": %d, "
+                            + "\"throughputPerSecond\": %.1f, \"p50Ms\": %.2f, \"p99Ms\": %.2f, \"errors\": %d}",
+                    mode, clients, tomcatThreads, poolSize, throughput, p50, p99, errors);
+        }
+
+        String toLine() {
+            return String.format(Locale.ROOT, "%-8s clients=%d tomcatThreads=%d poolSize=%d: %.1f req/s, p50 %.2f ms, p99 %.2f ms, errors %d",
+                    mode, clients, tomcatThreads, poolSize, throughput, p50, p99, errors);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.billing.testtask;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Интеграционные тесты метрик.
+ * Проверяет, что после запроса к API зарегистрированы метрики эндпоинтов, Hibernate, кэша и пула соединений.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @WithMockUser
+    @DisplayName("Запрос к API - метрики задержки, количества и времени SQL-запросов")
+    void apiRequest_ShouldRecordLatencyAndQueryCount() throws Exception {
+        mockMvc.perform(get("https://localhost:8443/api/tasks/pagination"))
+                .andExpect(status().isOk())
+                .andExpect(QueryAssertions.maxQueries(2))
+                .andExpect(QueryAssertions.noRepeatedQueries(1));
+
+        assertNotNull(meterRegistry.find("http.server.requests")
+                .tag("uri", "/api/tasks/pagination").timer());
+
+        DistributionSummary queries = meterRegistry.find("http.server.requests.queries")
+                .tag("uri", "/api/tasks/pagination").summary();
+        assertNotNull(queries);
+        assertTrue(queries.max() >= 1, "Страница задач должна выполнить хотя бы один SQL-запрос");
+        assertNotNull(meterRegistry.find("http.server.requests.queries.time")
+                .tag("uri", "/api/tasks/pagination").timer());
+    }
+
+    @Test
+    @DisplayName("Метрики Hibernate, регионов кэша второго уровня, кэша тегов, пула соединений и JVM зарегистрированы")
+    void infrastructureMetrics_ShouldBeRegistered() {
+        assertNotNull(meterRegistry.find("hibernate.statements").meter());
+        assertNotNull(meterRegistry.find("hibernate.entities.loads").meter());
+        assertNotNull(meterRegistry.find("hibernate.flushes").meter());
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests").tag("region", "tag").meter());
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests").tag("region", "type").meter());
+        assertNotNull(meterRegistry.find("cache.gets").tag("cache", "tagsCache").meter());
+        assertNotNull(meterRegistry.find("cache.evictions").tag("cache", "tagsCache").meter());
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").meter());
+        assertNotNull(meterRegistry.find("jvm.gc.memory.allocated").meter());
+    }
+}
@@ -0,0 +1,68 @@
+package com.billing.testtask;
+
+import com.billing.testtask.metrics.QueryCountFilter;
+import com.billing.testtask.metrics.QueryStatistics;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверки количества SQL-операторов для тестов.
+ * <pre>
+ * mockMvc.perform(get("/api/tasks/pagination")).andExpect(QueryAssertions.maxQueries(2));
+ * QueryAssertions.assertMaxQueries(1, () -> tagService.rename(id, "title"));
+ * </pre>
+ */
+public final class QueryAssertions {
+
+    private QueryAssertions() {
+    }
+
+    /**
+     * Запрос к API выполнил не больше max SQL-операторов.
+     */
+    public static ResultMatcher maxQueries(int max) {
+        return result -> {
+            QueryStatistics statistics = statistics(result);
+            assertTrue(statistics.getCount() <= max, "Ожидалось не более " + max + " SQL-операторов, выполнено "
+                    + statistics.getCount() + ": " + statistics.getExecutions());
+        };
+    }
+
+    /**
+     * Запрос к API не выполнил ни один SQL-оператор больше threshold раз (нет N+1).
+     */
+    public static ResultMatcher noRepeatedQueries(int threshold) {
+        return result -> {
+            Map<String, Integer> repeated = statistics(result).getRepeated(threshold);
+            assertTrue(repeated.isEmpty(), "Операторы выполнены больше " + threshold + " раз: " + repeated);
+        };
+    }
+
+    /**
+     * Код выполняет не больше max SQL-операторов.
+     *
+     * @return статистика операторов кода
+     */
+    public static QueryStatistics assertMaxQueries(int max, Runnable code) {
+        QueryStatistics.start();
+        QueryStatistics statistics;
+        try {
+            code.run();
+        } finally {
+            statistics = QueryStatistics.stop();
+        }
+        assertTrue(statistics.getCount() <= max, "Ожидалось не более " + max + " SQL-операторов, выполнено "
+                + statistics.getCount() + ": " + statistics.getExecutions());
+        return statistics;
+    }
+
+    private static QueryStatistics statistics(MvcResult result) {
+        Object statistics = result.getRequest().getAttribute(QueryCountFilter.STATISTICS_ATTRIBUTE);
+        assertNotNull(statistics, "Статистика SQL не собрана: запрос не прошел через QueryCountFilter");
+        return (QueryStatistics) statistics;
+    }
+}
@@ -0,0 +1,197 @@
+package com.billing.testtask;
+
+import com.billing.testtask.metrics.QueryStatistics;
+import com.billing.testtask.repository.AttachmentRepository;
+import com.billing.testtask.repository.TagRepository;
+import com.billing.testtask.repository.TaskRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что запросы репозиториев к таблице задач используют индексы из миграций.
+ * <p>
+ * Заполняет таблицу задач большим объемом данных и собирает статистику. Затем вызывает методы репозиториев,
+ * перехватывает сгенерированный Hibernate SQL ({@link QueryStatistics}) и анализирует его план через EXPLAIN
+ * с теми же значениями параметров. Тест падает, если планировщик выбирает последовательное сканирование
+ * таблицы task. Все изменения откатываются после теста.
+ */
+@SpringBootTest
+@Transactional
+class QueryPlanTest {
+
+    private static final int TASK_COUNT = 100_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    private long tagId;
+
+    /**
+     * Заполнение таблиц: 50 тегов, 4 типа и {@value TASK_COUNT} задач на год вперед.
+     */
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO tag(title) SELECT 'plan-tag-' || g FROM generate_series(1, 50) g");
+        jdbcTemplate.update("INSERT INTO type(title, level) SELECT 'plan-type-' || g, g * 10 FROM generate_series(1, 4) g");
+        tagId = jdbcTemplate.queryForObject("SELECT min(id) FROM tag WHERE title LIKE 'plan-tag-%'", Long.class);
+
+        jdbcTemplate.update("""
+                INSERT INTO task(name, description, task_date, uid_tag, uid_type)
+                SELECT 'task ' || g, 'description ' || g, current_date + (g % 365),
+                       (ARRAY(SELECT id FROM tag WHERE title LIKE 'plan-tag-%' ORDER BY id))[1 + g % 50],
+                       (ARRAY(SELECT id FROM type WHERE title LIKE 'plan-type-%' ORDER BY id))[1 + g % 4]
+                FROM generate_series(1, ?) g
+                """, TASK_COUNT);
+        jdbcTemplate.execute("ANALYZE tag");
+        jdbcTemplate.execute("ANALYZE type");
+        jdbcTemplate.execute("ANALYZE task");
+    }
+
+    @Test
+    @DisplayName("findByTaskDateOrderByTypePriority - без последовательного сканирования task")
+    void findByTaskDate_ShouldUseIndex() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(10);
+        assertNoSeqScanOnTask(capture(() -> taskRepository.findByTaskDateOrderByTypePriority(date)), date);
+    }
+
+    @Test
+    @DisplayName("findTaskModelsByTaskDate - без последовательного сканирования task")
+    void findTaskModelsByTaskDate_ShouldUseIndex() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(10);
+        assertNoSeqScanOnTask(capture(() -> taskRepository.findTaskModelsByTaskDate(date)), date);
+    }
+
+    @Test
+    @DisplayName("streamByTaskDateRange (месяц, с ограничением на день и без) - без последовательного сканирования task")
+    void findByDateRange_ShouldUseIndex() throws Exception {
+        LocalDate from = LocalDate.now().plusDays(30);
+        LocalDate to = LocalDate.now().plusDays(59);
+        assertNoSeqScanOnTask(capture(() -> taskRepository.streamByTaskDateRange(from, to).close()), from, to);
+        assertNoSeqScanOnTask(capture(() -> taskRepository.streamByTaskDateRange(from, to, 20).close()), from, to, 20L);
+    }
+
+    @Test
+    @DisplayName("findTaskModelsByTagId, findWithTaskRows и findVersionById - без последовательного сканирования task")
+    void findByTag_ShouldUseIndex() throws Exception {
+        assertNoSeqScanOnTask(capture(() -> taskRepository.findTaskModelsByTagId(tagId)), tagId);
+        assertNoSeqScanOnTask(capture(() -> tagRepository.findWithTaskRows(tagId)), tagId);
+        assertNoSeqScanOnTask(capture(() -> tagRepository.findVersionById(tagId)), tagId);
+    }
+
+    @Test
+    @DisplayName("aggregateByTagAndType (сводка по странице тегов) - без последовательного сканирования task")
+    void aggregateByTagAndType_ShouldUseIndex() throws Exception {
+        assertNoSeqScanOnTask(capture(() -> taskRepository.aggregateByTagAndType(List.of(tagId, tagId + 1))),
+                tagId, tagId + 1);
+    }
+
+    @Test
+    @DisplayName("Удаление задач тега - без последовательного сканирования task")
+    void deleteByTag_ShouldUseIndex() throws Exception {
+        assertNoSeqScanOnTask(capture(() -> taskRepository.deleteByTagId(tagId)), tagId);
+    }
+
+    @Test
+    @DisplayName("Курсорная пагинация - без последовательного сканирования task")
+    void keysetPagination_ShouldUseIndex() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(200);
+        assertNoSeqScanOnTask(capture(() -> taskRepository.findFirstTaskModels(
+                PageRequest.of(0, 10, Sort.by(Sort.Order.asc("taskDate").nullsLast(), Sort.Order.asc("id"))))), 11);
+        assertNoSeqScanOnTask(capture(() -> taskRepository.findFirstTaskModels(
+                PageRequest.of(0, 10, Sort.by("id")))), 11);
+        assertNoSeqScanOnTask(capture(() -> taskRepository.findAfterTaskDate(date, 0L, PageRequest.of(0, 10))),
+                date, date, 0L, 11);
+        assertNoSeqScanOnTask(capture(() -> taskRepository.findAfterId(50_000L, PageRequest.of(0, 10))), 50_000L, 11);
+        assertNoSeqScanOnTask(capture(() -> taskRepository.findWithoutTaskDateAfterId(0L, PageRequest.of(0, 10))), 0L, 11);
+    }
+
+    @Test
+    @DisplayName("findUpcomingByType (самые срочные задачи) - без последовательного сканирования task")
+    void findUpcomingByType_ShouldUseIndex() throws Exception {
+        long typeId = jdbcTemplate.queryForObject("SELECT max(id) FROM type WHERE title LIKE 'plan-type-%'", Long.class);
+        LocalDate today = LocalDate.now();
+        assertNoSeqScanOnTask(capture(() -> taskRepository.findUpcomingByType(typeId, today, PageRequest.of(0, 10))),
+                typeId, today, 10);
+    }
+
+    @Test
+    @DisplayName("lockOrphans (вложения удаленных задач) - без последовательного сканирования task")
+    void lockOrphans_ShouldUseIndex() throws Exception {
+        jdbcTemplate.update("""
+                INSERT INTO attachment_blob(sha256, size, ref_count) VALUES ('plan', 1, 1000)
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO attachment(id, task_id, name, sha256, created_at)
+                SELECT nextval('attachment_id_seq'), id, 'plan.txt', 'plan', now() FROM task WHERE id % 100 = 0
+                """);
+        jdbcTemplate.execute("ANALYZE attachment");
+        assertNoSeqScanOnTask(capture(() -> attachmentRepository.lockOrphans(500)), 500);
+    }
+
+    /**
+     * Выполняет вызов репозитория и возвращает текст SQL-оператора, который сгенерировал Hibernate.
+     *
+     * @param call вызов репозитория
+     * @return текст единственного выполненного оператора
+     */
+    private String capture(Runnable call) {
+        QueryStatistics statistics = QueryStatistics.start();
+        try {
+            call.run();
+        } finally {
+            QueryStatistics.stop();
+        }
+        Set<String> statements = statistics.getExecutions().keySet();
+        assertEquals(1, statements.size(), () -> "Ожидался один оператор: " + statements);
+        return statements.iterator().next();
+    }
+
+    /**
+     * Строит план запроса с теми же значениями параметров и проверяет, что в нем нет узла Seq Scan по таблице task.
+     *
+     * @param sql        текст запроса
+     * @param parameters значения параметров в порядке заполнителей
+     */
+    private void assertNoSeqScanOnTask(String sql, Object... parameters) throws Exception {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, parameters);
+        List<String> seqScans = new ArrayList<>();
+        collectSeqScans(objectMapper.readTree(plan), seqScans);
+        assertTrue(!seqScans.contains("task"), () -> "Последовательное сканирование task в плане:\n" + sql + "\n" + plan);
+    }
+
+    private void collectSeqScans(JsonNode node, List<String> relations) {
+        if (node.isObject() && "Seq Scan".equals(node.path("Node Type").asText())) {
+            relations.add(node.path("Relation Name").asText());
+        }
+        node.forEach(child -> collectSeqScans(child, relations));
+    }
+}
@@ -0,0 +1,73 @@
+package com.billing.testtask;
+
+import com.billing.testtask.metrics.QueryExecutionLogger;
+import com.billing.testtask.metrics.QueryStatistics;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link QueryStatistics} и {@link QueryExecutionLogger}.
+ * Проверяет учет операторов во вложенных участках и поиск повторяющихся операторов (N+1).
+ */
+class QueryStatisticsTest {
+
+    private static final String SELECT_TAG = "select t.id, t.title from tag t where t.id=?";
+    private static final String SELECT_TASKS = "select t.id, t.name from task t";
+
+    private final QueryExecutionLogger logger = new QueryExecutionLogger(Duration.ofMillis(100));
+
+    /**
+     * Оператор учитывается во всех начатых участках, вне участков не учитывается.
+     */
+    @Test
+    @DisplayName("Статистика SQL - вложенные участки")
+    void record_ShouldCountInAllActiveScopes() {
+        execute(SELECT_TASKS, 5);
+
+        QueryStatistics outer = QueryStatistics.start();
+        execute(SELECT_TASKS, 5);
+        QueryStatistics inner = QueryStatistics.start();
+        execute(SELECT_TAG, 150);
+        assertSame(inner, QueryStatistics.stop());
+        assertSame(outer, QueryStatistics.stop());
+
+        assertEquals(1, inner.getCount());
+        assertEquals(150, inner.getElapsedMillis());
+        assertEquals(2, outer.getCount());
+        assertEquals(155, outer.getElapsedMillis());
+        assertEquals(0, QueryStatistics.stop().getCount());
+    }
+
+    /**
+     * Оператор, выполненный больше порога раз, определяется как возможный N+1.
+     */
+    @Test
+    @DisplayName("Статистика SQL - повторяющиеся операторы (N+1)")
+    void getRepeated_ShouldReturnStatementsOverThreshold() {
+        QueryStatistics.start();
+        execute(SELECT_TASKS, 1);
+        for (int i = 0; i < 11; i++) {
+            execute(SELECT_TAG, 1);
+        }
+        QueryStatistics statistics = QueryStatistics.stop();
+
+        assertEquals(12, statistics.getCount());
+        assertEquals(Map.of(SELECT_TAG, 11), statistics.getRepeated(10));
+        assertTrue(statistics.getRepeated(11).isEmpty());
+    }
+
+    private void execute(String sql, long elapsedMillis) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsedMillis);
+        execution.setSuccess(true);
+        logger.afterQuery(execution, List.of(new QueryInfo(sql)));
+    }
+}
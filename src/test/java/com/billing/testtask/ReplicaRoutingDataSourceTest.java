@@ -0,0 +1,176 @@
+package com.billing.testtask;
+
+import com.billing.testtask.config.ReplicaRoutingDataSource;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты для {@link ReplicaRoutingDataSource}.
+ * Проверяют выбор базы по признаку readOnly транзакции, read-your-writes по клиенту и переход на основную базу
+ * при недоступной реплике.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(primaryConnection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        routing = new ReplicaRoutingDataSource(primary, replica, 1024, Duration.ofMinutes(1));
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Тестирует, что read-only транзакция читает из реплики, а пишущая транзакция
+     * и запросы вне транзакции идут в основную базу.
+     */
+    @Test
+    @DisplayName("Read-only транзакции направляются в реплику")
+    void getConnection_ShouldRouteReadOnlyTransactionsToReplica() throws SQLException {
+        assertSame(primaryConnection, target(routing.getConnection()));
+
+        inTransaction(true);
+        assertSame(replicaConnection, target(routing.getConnection()));
+
+        inTransaction(false);
+        assertSame(primaryConnection, target(routing.getConnection()));
+
+        inTransaction(true);
+        assertSame(primaryConnection, target(ReplicaRoutingDataSource.readFromPrimary(this::connection)));
+        assertSame(replicaConnection, target(routing.getConnection()));
+    }
+
+    /**
+     * Тестирует, что после фиксации транзакции с изменениями чтения того же клиента идут в основную базу,
+     * а чтения другого клиента той же учетной записи - в реплику. Read-write транзакция без изменений
+     * и незафиксированные изменения чтение не переключают.
+     */
+    @Test
+    @DisplayName("Чтение после записи того же клиента - из основной базы")
+    void getConnection_ShouldReadOwnWritesFromPrimary() throws SQLException {
+        request("user", "writer");
+        inTransaction(false);
+        routing.getConnection().prepareStatement("SELECT 1").executeQuery();
+        commit();
+        inTransaction(true);
+        assertSame(replicaConnection, target(routing.getConnection()));
+
+        inTransaction(false);
+        routing.getConnection().prepareStatement("UPDATE tag SET title = ? WHERE id = ?").executeUpdate();
+
+        inTransaction(true);
+        assertSame(replicaConnection, target(routing.getConnection()));
+
+        commit();
+        assertSame(primaryConnection, target(routing.getConnection()));
+
+        request("user", "reader");
+        assertSame(replicaConnection, target(routing.getConnection()));
+    }
+
+    /**
+     * Тестирует, что изменения откатанной транзакции чтение не переключают.
+     */
+    @Test
+    @DisplayName("Откатанная запись не переключает чтение")
+    void getConnection_ShouldIgnoreRolledBackWrites() throws SQLException {
+        request("user", "writer");
+        inTransaction(false);
+        routing.getConnection().prepareStatement("DELETE FROM task WHERE id = ?").executeUpdate();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        inTransaction(true);
+        assertSame(replicaConnection, target(routing.getConnection()));
+    }
+
+    /**
+     * Тестирует, что при ошибке соединения с репликой чтение выполняется в основной базе
+     * и реплика исключается до следующей проверки.
+     */
+    @Test
+    @DisplayName("Недоступная реплика заменяется основной базой")
+    void getConnection_ShouldFallBackToPrimaryWhenReplicaFails() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+        inTransaction(true);
+
+        assertSame(primaryConnection, target(routing.getConnection()));
+        assertFalse(routing.isReplicaAvailable());
+        assertSame(primaryConnection, target(routing.getConnection()));
+        verify(replica, times(1)).getConnection();
+    }
+
+    private Connection connection() {
+        try {
+            return routing.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void inTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.initSynchronization();
+        }
+    }
+
+    private static void commit() {
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void request(String user, String client) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(user, null));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(ReplicaRoutingDataSource.CLIENT_HEADER, client);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    /**
+     * Соединение целевой базы: соединения основной базы обернуты для учета изменений.
+     */
+    private static Connection target(Connection connection) {
+        return connection instanceof ProxyJdbcObject proxy ? (Connection) proxy.getTarget() : connection;
+    }
+}
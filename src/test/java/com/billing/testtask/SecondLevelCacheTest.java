@@ -0,0 +1,213 @@
+package com.billing.testtask;
+
+import com.billing.testtask.entity.TagEntity;
+import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.metrics.QueryStatistics;
+import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.repository.TagRepository;
+import com.billing.testtask.repository.TaskRepository;
+import com.billing.testtask.repository.TypeRepository;
+import com.billing.testtask.service.impl.TagServiceImpl;
+import com.billing.testtask.service.impl.TaskServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Интеграционные тесты кэша второго уровня для тегов и типов и кэша моделей тегов tagsCache.
+ * Кэш заполняется после фиксации транзакций, поэтому тест работает без откатываемой транзакции
+ * и удаляет созданные данные сам.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private TypeRepository typeRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskServiceImpl taskService;
+
+    @Autowired
+    private TagServiceImpl tagService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private TagEntity tag;
+    private TypeEntity type;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        tag = tagRepository.save(TagEntity.builder().title("cache-tag").build());
+        type = typeRepository.save(TypeEntity.builder().title("cache-type").level(1).build());
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tagRepository.deleteById(tag.getId());
+        typeRepository.findById(type.getId()).ifPresent(typeRepository::delete);
+    }
+
+    /**
+     * Тестирует, что повторная загрузка тега не обращается к базе, а переименование операторами
+     * JPQL и SQL сбрасывает закэшированный тег. Изменение задач тега кэш тегов не сбрасывает.
+     */
+    @Test
+    @DisplayName("Кэш тегов - попадание и сброс при переименовании")
+    void tag_ShouldBeCachedAndInvalidatedByBulkUpdates() {
+        assertEquals("cache-tag", loadTitle());
+        CacheRegionStatistics region = statistics("tag");
+        long hits = region.getHitCount();
+
+        QueryStatistics.start();
+        assertEquals("cache-tag", loadTitle());
+        assertEquals(0, QueryStatistics.stop().getCount());
+        assertEquals(hits + 1, region.getHitCount());
+
+        Long taskId = taskService.save(TaskModel.builder()
+                .name("cached")
+                .taskDate(LocalDate.now())
+                .tagId(tag.getId())
+                .typeId(type.getId())
+                .build());
+        QueryStatistics.start();
+        loadTitle();
+        assertEquals(0, QueryStatistics.stop().getCount());
+        taskService.delete(taskId);
+
+        transaction.executeWithoutResult(status -> tagRepository.updateTitle(tag.getId(), "renamed"));
+        assertEquals("renamed", loadTitle());
+
+        transaction.executeWithoutResult(status -> tagRepository.updateTitles(
+                new Long[]{tag.getId()}, new String[]{"renamed twice"}));
+        assertEquals("renamed twice", loadTitle());
+    }
+
+    /**
+     * Тестирует, что список типов по приоритету берется из кэша запросов
+     * и перечитывается после изменения типа.
+     */
+    @Test
+    @DisplayName("Кэш запросов типов - попадание и сброс при изменении типа")
+    void orderedTypes_ShouldBeCachedAndInvalidatedOnChange() {
+        typeRepository.findAllByOrderByLevelAsc();
+        QueryStatistics.start();
+        List<TypeEntity> cached = typeRepository.findAllByOrderByLevelAsc();
+        assertEquals(0, QueryStatistics.stop().getCount());
+        assertTrue(cached.stream().anyMatch(t -> t.getId().equals(type.getId())));
+
+        type.setLevel(1000);
+        type = typeRepository.save(type);
+        List<TypeEntity> descending = typeRepository.findAllByOrderByLevelDesc();
+        assertEquals(type.getId(), descending.get(0).getId());
+        assertEquals(type.getId(), typeRepository.findAllByOrderByLevelAsc().getLast().getId());
+
+        typeRepository.delete(type);
+        assertTrue(typeRepository.findAllByOrderByLevelAsc().stream().noneMatch(t -> t.getId().equals(type.getId())));
+    }
+
+    /**
+     * Тестирует, что после фиксации изменения задач тега или его переименования запись тега в tagsCache сброшена.
+     */
+    @Test
+    @DisplayName("Кэш моделей тегов - сброс после фиксации изменений")
+    void tagsCache_ShouldBeEvictedAfterCommit() {
+        Cache tagsCache = cacheManager.getCache("tagsCache");
+        assertNotNull(tagsCache);
+
+        tagsCache.put(tag.getId(), "stale");
+        Long taskId = taskService.save(TaskModel.builder()
+                .name("cached")
+                .taskDate(LocalDate.now())
+                .tagId(tag.getId())
+                .typeId(type.getId())
+                .build());
+        assertNull(tagsCache.get(tag.getId()));
+
+        tagsCache.put(tag.getId(), "stale");
+        taskService.delete(taskId);
+        assertNull(tagsCache.get(tag.getId()));
+
+        tagsCache.put(tag.getId(), "stale");
+        tagService.rename(tag.getId(), "renamed");
+        assertNull(tagsCache.get(tag.getId()));
+        assertFalse(taskRepository.existsById(taskId));
+    }
+
+    /**
+     * Тестирует, что версия тега для ETag меняется при создании, изменении, переносе и удалении задач тега
+     * и не зависит от счетчика в строке тега.
+     */
+    @Test
+    @DisplayName("Версия тега - отпечаток задач")
+    void tagVersion_ShouldFollowTaskChanges() {
+        TagEntity other = tagRepository.save(TagEntity.builder().title("cache-other").build());
+        try {
+            String empty = tagService.getTagVersion(tag.getId());
+            TaskModel task = TaskModel.builder()
+                    .name("versioned")
+                    .taskDate(LocalDate.now())
+                    .tagId(tag.getId())
+                    .typeId(type.getId())
+                    .build();
+            task.setId(taskService.save(task));
+            String created = tagService.getTagVersion(tag.getId());
+            assertNotEquals(empty, created);
+
+            task.setName("versioned twice");
+            taskService.save(task);
+            String updated = tagService.getTagVersion(tag.getId());
+            assertNotEquals(created, updated);
+
+            String otherBefore = tagService.getTagVersion(other.getId());
+            task.setTagId(other.getId());
+            taskService.save(task);
+            assertEquals(empty, tagService.getTagVersion(tag.getId()));
+            assertNotEquals(otherBefore, tagService.getTagVersion(other.getId()));
+
+            String moved = tagService.getTagVersion(other.getId());
+            taskService.delete(task.getId());
+            assertNotEquals(moved, tagService.getTagVersion(other.getId()));
+        } finally {
+            tagRepository.deleteById(other.getId());
+        }
+    }
+
+    private String loadTitle() {
+        return transaction.execute(status -> tagRepository.findById(tag.getId()).orElseThrow().getTitle());
+    }
+
+    private CacheRegionStatistics statistics(String region) {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics().getDomainDataRegionStatistics(region);
+    }
+}
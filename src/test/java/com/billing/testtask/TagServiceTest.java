@@ -12,13 +12,17 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -73,13 +77,13 @@ class TagServiceTest {
     @Test
     void createTag_Success() {
         when(bindingResult.hasErrors()).thenReturn(false);
-        when(tagService.save(any(TagModel.class))).thenReturn(testTagModel);
+        when(tagService.save(any(TagModel.class), anyBoolean())).thenReturn(testTagModel);
 
-        ResponseEntity<?> response = tagController.createTag(testTagModel, bindingResult);
+        ResponseEntity<?> response = tagController.createTag(testTagModel, bindingResult, false);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertEquals(testTagModel, response.getBody());
-        verify(tagService, times(1)).save(testTagModel);
+        verify(tagService, times(1)).save(testTagModel, false);
     }
 
     /**
@@ -92,10 +96,10 @@ class TagServiceTest {
     void createTag_ValidationError() {
         when(bindingResult.hasErrors()).thenReturn(true);
 
-        ResponseEntity<?> response = tagController.createTag(testTagModel, bindingResult);
+        ResponseEntity<?> response = tagController.createTag(testTagModel, bindingResult, false);
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
-        verify(tagService, never()).save(any());
+        verify(tagService, never()).save(any(), anyBoolean());
     }
 
     /**
@@ -107,15 +111,34 @@ class TagServiceTest {
      */
     @Test
     void getAllTasks_Success() {
+        when(tagService.getTagVersion(anyLong())).thenReturn("0.0");
         when(tagService.getAllTaskByTag(anyLong())).thenReturn(testTagModel);
 
-        ResponseEntity<TagModel> response = tagController.getAllTasks(1L);
+        ResponseEntity<TagModel> response = tagController.getAllTasks(1L, webRequest(null));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("W/\"0.0\"", response.getHeaders().getETag());
         assertEquals(testTagModel, response.getBody());
         verify(tagService, times(1)).getAllTaskByTag(1L);
     }
 
+    /**
+     * Тестирование условного запроса тега.
+     * Проверяет:
+     * - Код ответа 304 (NOT_MODIFIED) при совпадении If-None-Match с версией тега
+     * - Задачи тега не загружаются
+     */
+    @Test
+    void getAllTasks_NotModified() {
+        when(tagService.getTagVersion(anyLong())).thenReturn("3.7");
+
+        ResponseEntity<TagModel> response = tagController.getAllTasks(1L, webRequest("W/\"3.7\""));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(tagService, never()).getAllTaskByTag(anyLong());
+    }
+
     /**
      * Тестирование успешного удаления тега.
      * Проверяет:
@@ -143,9 +166,10 @@ class TagServiceTest {
      */
     @Test
     void getTagWithTasks_Success() {
+        when(tagService.getTagWithSortedTasksVersion(anyLong())).thenReturn("0.0-1");
         when(tagService.getTagWithSortedTasks(anyLong())).thenReturn(testTagWithTask);
 
-        ResponseEntity<TagWithTask> response = tagController.getTagWithTasks(1L);
+        ResponseEntity<TagWithTask> response = tagController.getTagWithTasks(1L, webRequest(null));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(testTagWithTask, response.getBody());
@@ -171,4 +195,15 @@ class TagServiceTest {
         assertEquals(testTagEntity, response.getBody().get(0));
         verify(tagService, times(1)).getTagsWithTasks();
     }
-}
\ No newline at end of file
+
+    /**
+     * Создает запрос с необязательным заголовком If-None-Match.
+     */
+    private static ServletWebRequest webRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tags/1");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,195 @@
+package com.billing.testtask;
+
+import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.event.TagDeletedEvent;
+import com.billing.testtask.event.TaskChangedEvent;
+import com.billing.testtask.event.TasksCreatedEvent;
+import com.billing.testtask.event.TypesChangedEvent;
+import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.repository.TaskRepository;
+import com.billing.testtask.repository.TypeRepository;
+import com.billing.testtask.service.impl.TaskAgendaIndex;
+import com.billing.testtask.service.impl.TypeRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тестовый класс для {@link TaskAgendaIndex}.
+ * Проверяет построение индекса и его инкрементальное обновление по событиям.
+ */
+class TaskAgendaIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2030, 1, 10);
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TypeRepository typeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    private TypeRegistry typeRegistry;
+
+    private TaskAgendaIndex index;
+
+    /**
+     * Построение индекса по трем задачам: две на сегодня с разным приоритетом и одна на завтра.
+     */
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TypeEntity low = TypeEntity.builder().id(1L).title("обычная").level(40).build();
+        TypeEntity high = TypeEntity.builder().id(2L).title("срочная").level(90).build();
+        when(typeRepository.findAllByOrderByLevelAsc()).thenReturn(List.of(low, high));
+        when(taskRepository.streamTaskModelsFrom(any())).thenReturn(Stream.of(
+                task(10L, TODAY, 1L, 1L),
+                task(11L, TODAY, 1L, 2L),
+                task(12L, TODAY.plusDays(1), 2L, 1L)));
+
+        typeRegistry = new TypeRegistry(typeRepository, eventPublisher, entityManagerFactory);
+        index = new TaskAgendaIndex(taskRepository, typeRegistry, transactionManager);
+        index.rebuild(TODAY);
+    }
+
+    /**
+     * Задачи дня возвращаются по убыванию приоритета типа, дни до построения индекса не покрываются.
+     */
+    @Test
+    void find_ShouldReturnTasksOrderedByPriority() {
+        assertEquals(List.of(11L, 10L), ids(index.find(TODAY).orElseThrow()));
+        assertEquals("срочная", index.find(TODAY).orElseThrow().get(0).getTypeTitle());
+        assertTrue(index.find(TODAY.plusDays(5)).orElseThrow().isEmpty());
+        assertTrue(index.find(TODAY.minusDays(1)).isEmpty());
+    }
+
+    /**
+     * Перенос задачи на другой день, создание и удаление задач обновляют только затронутые дни.
+     */
+    @Test
+    void onTaskChanged_ShouldMoveCreateAndDeleteTasks() {
+        index.onTaskChanged(new TaskChangedEvent(task(10L, TODAY, 1L, 1L), task(10L, TODAY.plusDays(1), 1L, 2L)));
+        index.onTaskChanged(TaskChangedEvent.created(task(13L, TODAY, 1L, 1L)));
+        index.onTaskChanged(TaskChangedEvent.deleted(task(11L, TODAY, 1L, 2L)));
+
+        assertEquals(List.of(13L), ids(index.find(TODAY).orElseThrow()));
+        assertEquals(List.of(10L, 12L), ids(index.find(TODAY.plusDays(1)).orElseThrow()));
+    }
+
+    /**
+     * Пакет созданных задач раскладывается по дням и сортируется по приоритету вместе с задачами индекса.
+     */
+    @Test
+    void onTasksCreated_ShouldAddBatchToDays() {
+        index.onTasksCreated(new TasksCreatedEvent(List.of(
+                task(13L, TODAY, 1L, 2L),
+                task(14L, TODAY, 1L, 1L),
+                task(15L, TODAY.plusDays(1), 2L, 2L),
+                task(16L, TODAY.minusDays(1), 2L, 2L))));
+
+        assertEquals(List.of(11L, 13L, 10L, 14L), ids(index.find(TODAY).orElseThrow()));
+        assertEquals(List.of(15L, 12L), ids(index.find(TODAY.plusDays(1)).orElseThrow()));
+    }
+
+    /**
+     * Удаление тега убирает из индекса все его задачи.
+     */
+    @Test
+    void onTagDeleted_ShouldRemoveTasksOfTag() {
+        index.onTagDeleted(new TagDeletedEvent(1L));
+
+        assertTrue(index.find(TODAY).orElseThrow().isEmpty());
+        assertEquals(List.of(12L), ids(index.find(TODAY.plusDays(1)).orElseThrow()));
+    }
+
+    /**
+     * Новый снимок реестра типов меняет заголовки и порядок задач в индексе.
+     */
+    @Test
+    void onTypesChanged_ShouldResortTasks() {
+        when(typeRepository.findAllByOrderByLevelAsc()).thenReturn(List.of(
+                TypeEntity.builder().id(2L).title("отложенная").level(10).build(),
+                TypeEntity.builder().id(1L).title("обычная").level(40).build()));
+        typeRegistry.reload();
+        index.onTypesChanged(new TypesChangedEvent());
+
+        List<GetTaskInfo> tasks = index.find(TODAY).orElseThrow();
+        assertEquals(List.of(10L, 11L), ids(tasks));
+        assertEquals("отложенная", tasks.get(1).getTypeTitle());
+    }
+
+    /**
+     * Событие о первой загрузке снимка публикуется без блокировки реестра: обработчик, ждущий блокировку индекса,
+     * не должен мешать потоку, который держит блокировку индекса и обращается к реестру.
+     */
+    @Test
+    void firstLoad_ShouldPublishEventWithoutRegistryLock() {
+        AtomicBoolean published = new AtomicBoolean();
+        AtomicReference<TypeRegistry> registry = new AtomicReference<>();
+        ApplicationEventPublisher publisher = event -> {
+            if (published.compareAndSet(false, true)) {
+                assertDoesNotThrow(() -> CompletableFuture.runAsync(() -> registry.get().reload())
+                        .get(5, TimeUnit.SECONDS));
+            }
+        };
+        registry.set(new TypeRegistry(typeRepository, publisher, entityManagerFactory));
+
+        assertEquals(90, registry.get().levelOf(2L));
+        assertTrue(published.get());
+    }
+
+    /**
+     * Версия снимка - SHA-256 идентификаторов и версий типов: меняется при изменении версии любого типа.
+     */
+    @Test
+    void reload_ShouldDigestTypeVersions() {
+        String version = typeRegistry.getVersion();
+        assertTrue(version.matches("[0-9a-f]{64}"));
+
+        when(typeRepository.findAllByOrderByLevelAsc()).thenReturn(List.of(
+                TypeEntity.builder().id(1L).title("обычная").level(40).build(),
+                TypeEntity.builder().id(2L).title("срочная").level(90).version(1L).build()));
+        typeRegistry.reload();
+        assertNotEquals(version, typeRegistry.getVersion());
+    }
+
+    private static TaskModel task(Long id, LocalDate date, Long tagId, Long typeId) {
+        return TaskModel.builder()
+                .id(id)
+                .name("Task " + id)
+                .description("Description")
+                .taskDate(date)
+                .tagId(tagId)
+                .typeId(typeId)
+                .build();
+    }
+
+    private static List<Long> ids(List<GetTaskInfo> tasks) {
+        return tasks.stream().map(GetTaskInfo::getId).toList();
+    }
+}
@@ -0,0 +1,118 @@
+package com.billing.testtask;
+
+import com.billing.testtask.dto.TaskIngestStatus;
+import com.billing.testtask.entity.TagEntity;
+import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.repository.TagRepository;
+import com.billing.testtask.repository.TaskRepository;
+import com.billing.testtask.repository.TypeRepository;
+import com.billing.testtask.service.TaskIngestService;
+import com.billing.testtask.service.impl.TaskIngestServiceImpl;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Интеграционные тесты для {@link TaskIngestServiceImpl}.
+ * Запись выполняется фоновым потоком в собственных транзакциях, поэтому тест работает без откатываемой
+ * транзакции и удаляет созданные данные сам.
+ */
+@SpringBootTest
+class TaskIngestServiceTest {
+
+    @Autowired
+    private TaskIngestService taskIngestService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private TypeRepository typeRepository;
+
+    private TagEntity tag;
+    private TypeEntity type;
+    private final List<Long> created = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        tag = tagRepository.save(TagEntity.builder().title("ingest-tag-" + System.nanoTime()).build());
+        type = typeRepository.save(TypeEntity.builder().title("ingest-type").level(1).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAllById(created);
+        tagRepository.deleteById(tag.getId());
+        typeRepository.deleteById(type.getId());
+    }
+
+    /**
+     * Тестирует, что принятые задачи получают разные идентификаторы сразу,
+     * а после фоновой записи существуют в базе и имеют состояние CREATED.
+     */
+    @Test
+    @DisplayName("Асинхронное создание - идентификатор сразу, запись группой в фоне")
+    void submit_ShouldReserveIdAndWriteInBackground() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            created.add(taskIngestService.submit(task("ingest " + i)).orElseThrow());
+        }
+        assertEquals(3, created.stream().distinct().count());
+
+        for (Long id : created) {
+            assertEquals(TaskIngestStatus.Status.CREATED, awaitWritten(id).getStatus());
+            assertEquals(tag.getId(), taskRepository.findById(id).orElseThrow().getTag().getId());
+        }
+        assertTrue(taskIngestService.getStatus(-1L).isEmpty());
+    }
+
+    /**
+     * Тестирует, что некорректная задача отклоняется до постановки в очередь.
+     */
+    @Test
+    @DisplayName("Асинхронное создание - проверка задачи до постановки в очередь")
+    void submit_ShouldRejectInvalidTask() {
+        TaskModel past = task("past");
+        past.setTaskDate(LocalDate.now().minusDays(1));
+        assertThrows(IllegalArgumentException.class, () -> taskIngestService.submit(past));
+
+        TaskModel missingTag = task("missing tag");
+        missingTag.setTagId(-1L);
+        assertThrows(EntityNotFoundException.class, () -> taskIngestService.submit(missingTag));
+    }
+
+    private TaskIngestStatus awaitWritten(Long id) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            TaskIngestStatus status = taskIngestService.getStatus(id).orElseThrow();
+            if (status.getStatus() != TaskIngestStatus.Status.QUEUED) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        fail("Задача " + id + " не записана");
+        return null;
+    }
+
+    private TaskModel task(String name) {
+        return TaskModel.builder()
+                .name(name)
+                .description(name)
+                .taskDate(LocalDate.now())
+                .tagId(tag.getId())
+                .typeId(type.getId())
+                .build();
+    }
+}
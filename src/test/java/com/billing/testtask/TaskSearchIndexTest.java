@@ -0,0 +1,134 @@
+package com.billing.testtask;
+
+import com.billing.testtask.dto.TaskSearchQuery;
+import com.billing.testtask.event.TagDeletedEvent;
+import com.billing.testtask.event.TaskChangedEvent;
+import com.billing.testtask.event.TasksCreatedEvent;
+import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.repository.TaskRepository;
+import com.billing.testtask.service.impl.TaskSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тестовый класс для {@link TaskSearchIndex}.
+ * Проверяет поиск с учетом словоформ, ранжирование, фильтры и обновление индекса по событиям.
+ */
+class TaskSearchIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 10);
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TaskSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        when(taskRepository.streamAllTaskModels()).thenReturn(Stream.of(
+                task(1L, "Квартальный отчет", "Собрать данные по продажам", DAY, 1L, 1L),
+                task(2L, "Созвон с командой", "Обсудить отчеты и планы", DAY.plusDays(1), 1L, 2L),
+                task(3L, "Prepare invoices", "Billing reports for customers", DAY, 2L, 1L)));
+        index = new TaskSearchIndex(taskRepository, transactionManager);
+        index.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    /**
+     * Слово находится в других формах (русский и английский), совпадение в названии ранжируется выше,
+     * все слова запроса обязательны.
+     */
+    @Test
+    @DisplayName("Поиск по словоформам с ранжированием")
+    void search_ShouldMatchWordFormsAndRankNameHigher() {
+        assertEquals(List.of(1L, 2L), ids(search(TaskSearchQuery.builder().text("отчёты").build())));
+        assertEquals(List.of(3L), ids(search(TaskSearchQuery.builder().text("invoice report").build())));
+        assertEquals(List.of(1L), ids(search(TaskSearchQuery.builder().text("отчет продажи").build())));
+        assertTrue(search(TaskSearchQuery.builder().text("и the").build()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> search(TaskSearchQuery.builder().text(" ").build()));
+    }
+
+    /**
+     * Фильтры по тегу, типу и дате и постраничная выдача.
+     */
+    @Test
+    @DisplayName("Поиск с фильтрами и пагинацией")
+    void search_ShouldApplyFiltersAndPaging() {
+        assertEquals(List.of(2L), ids(search(TaskSearchQuery.builder().text("отчет").typeId(2L).build())));
+        assertEquals(List.of(1L), ids(search(TaskSearchQuery.builder().text("отчет").to(DAY).build())));
+        assertTrue(search(TaskSearchQuery.builder().text("отчет").tagId(2L).build()).isEmpty());
+
+        Page<TaskModel> second = index.search(TaskSearchQuery.builder().text("отчет").build(), PageRequest.of(1, 1));
+        assertEquals(List.of(2L), ids(second));
+        assertEquals(2, second.getTotalElements());
+        assertEquals("Созвон с командой", second.getContent().get(0).getName());
+    }
+
+    /**
+     * Изменение, создание пакетом, удаление задачи и удаление тега применяются к индексу.
+     */
+    @Test
+    @DisplayName("Обновление индекса по событиям")
+    void events_ShouldUpdateIndex() {
+        TaskModel previous = task(3L, "Prepare invoices", "Billing reports for customers", DAY, 2L, 1L);
+        index.onTaskChanged(new TaskChangedEvent(previous,
+                task(3L, "Отправить счета", "Billing reports for customers", DAY, 2L, 1L)));
+        assertTrue(search(TaskSearchQuery.builder().text("invoices").build()).isEmpty());
+        assertEquals(List.of(3L), ids(search(TaskSearchQuery.builder().text("счет").build())));
+
+        index.onTaskChanged(TaskChangedEvent.created(task(4L, "Новый отчет", "Описание", DAY, 2L, 1L)));
+        assertEquals(List.of(4L, 1L, 2L), ids(search(TaskSearchQuery.builder().text("отчет").build())));
+
+        index.onTasksCreated(new TasksCreatedEvent(List.of(
+                task(5L, "Закупка бумаги", "", DAY, 2L, 1L),
+                task(6L, "Закупка картриджей", "", DAY, 2L, 1L))));
+        assertEquals(Set.of(5L, 6L), Set.copyOf(ids(search(TaskSearchQuery.builder().text("закупка").build()))));
+
+        index.onTaskChanged(TaskChangedEvent.deleted(task(1L, "Квартальный отчет", "", DAY, 1L, 1L)));
+        index.onTagDeleted(new TagDeletedEvent(2L));
+        assertEquals(List.of(2L), ids(search(TaskSearchQuery.builder().text("отчет").build())));
+    }
+
+    private Page<TaskModel> search(TaskSearchQuery query) {
+        return index.search(query, PageRequest.of(0, 10));
+    }
+
+    private static List<Long> ids(Page<TaskModel> page) {
+        return page.getContent().stream().map(TaskModel::getId).toList();
+    }
+
+    private static TaskModel task(Long id, String name, String description, LocalDate date, Long tagId, Long typeId) {
+        return TaskModel.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .taskDate(date)
+                .tagId(tagId)
+                .typeId(typeId)
+                .build();
+    }
+}
@@ -1,13 +1,27 @@
 package com.billing.testtask;
 
+import com.billing.testtask.dto.AttachmentInfo;
+import com.billing.testtask.dto.CursorPage;
+import com.billing.testtask.dto.DayTasks;
+import com.billing.testtask.dto.GetTaskInfo;
+import com.billing.testtask.dto.TagSummary;
+import com.billing.testtask.dto.TagWithTask;
+import com.billing.testtask.dto.TaskBatchResult;
+import com.billing.testtask.dto.TaskCursorSort;
 import com.billing.testtask.entity.TagEntity;
 import com.billing.testtask.entity.TaskEntity;
 import com.billing.testtask.entity.TypeEntity;
+import com.billing.testtask.metrics.QueryStatistics;
+import com.billing.testtask.model.TagModel;
 import com.billing.testtask.model.TaskModel;
+import com.billing.testtask.repository.AttachmentBlobRepository;
 import com.billing.testtask.repository.TagRepository;
 import com.billing.testtask.repository.TaskRepository;
 import com.billing.testtask.repository.TypeRepository;
+import com.billing.testtask.service.AttachmentService;
+import com.billing.testtask.service.impl.TagServiceImpl;
 import com.billing.testtask.service.impl.TaskServiceImpl;
+import com.billing.testtask.service.impl.TypeRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,17 +29,35 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.transaction.AfterTransaction;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -44,6 +76,9 @@ class TaskServiceTest {
     @Autowired
     private TaskServiceImpl taskService;
 
+    @Autowired
+    private TagServiceImpl tagService;
+
     @Autowired
     private TaskRepository taskRepository;
 
@@ -53,6 +88,21 @@ class TaskServiceTest {
     @Autowired
     private TypeRepository typeRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private AttachmentBlobRepository attachmentBlobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TypeRegistry typeRegistry;
+
     private TagEntity testTag;
     private TypeEntity testType;
 
@@ -85,6 +135,14 @@ class TaskServiceTest {
         );
     }
 
+    /**
+     * Перечитывает реестр типов после отката транзакции теста, чтобы в снимке не остались типы теста.
+     */
+    @AfterTransaction
+    void reloadTypes() {
+        typeRegistry.reload();
+    }
+
     /**
      * Тестирует сохранение задачи без указания типа.
      * <p>
@@ -176,6 +234,53 @@ class TaskServiceTest {
         assertEquals("Updated description", updatedTask.getDescription());
     }
 
+    /**
+     * Тестирует пакетное создание задач.
+     * <p>
+     * Проверяет, что корректные строки сохраняются, а строки с несуществующим тегом
+     * и с датой в прошлом отклоняются без влияния на остальные.
+     */
+    @Test
+    @DisplayName("Пакетное создание задач - результат по каждой строке")
+    void saveAll_ShouldReportPerRowResults() {
+        List<TaskModel> batch = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            batch.add(createTestTaskModel("Batch " + i));
+        }
+        batch.get(5).setTagId(999_999L);
+        batch.get(7).setTaskDate(LocalDate.now().minusDays(1));
+
+        List<TaskBatchResult> results = taskService.saveAll(batch);
+
+        assertEquals(120, results.size());
+        assertEquals(TaskBatchResult.Status.REJECTED, results.get(5).getStatus());
+        assertEquals("Тег не найден", results.get(5).getError());
+        assertEquals(TaskBatchResult.Status.REJECTED, results.get(7).getStatus());
+        assertEquals(118, results.stream()
+                .filter(result -> result.getStatus() == TaskBatchResult.Status.CREATED)
+                .count());
+        assertTrue(taskRepository.existsById(results.get(0).getId()));
+        assertEquals(118, taskRepository.count());
+    }
+
+    /**
+     * Тестирует, что пакет NDJSON больше task.batch.max-size отклоняется, как только число строк
+     * превысило предел: некорректная строка после предела уже не читается.
+     */
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Пакет NDJSON больше допустимого - отклоняется до чтения остатка")
+    void createTasksFromStream_ShouldRejectOversizedBatchEarly() throws Exception {
+        String body = "{}\n".repeat(10_001) + "not json\n";
+
+        mockMvc.perform(post("https://localhost:8443/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isInternalServerError())
+                .andExpect(content().string(containsString("Пакет превышает допустимый размер 10000")));
+        assertEquals(0, taskRepository.count());
+    }
+
     /**
      * Тестирует успешное удаление существующей задачи.
      * <p>
@@ -190,6 +295,27 @@ class TaskServiceTest {
         assertFalse(taskRepository.existsById(task.getId()));
     }
 
+    /**
+     * Тестирует, что закэшированная модель тега не сбрасывается до фиксации транзакции.
+     * <p>
+     * Проверяет, что внутри незафиксированной транзакции запись тега в tagsCache остается;
+     * сброс после фиксации проверяет {@link SecondLevelCacheTest}.
+     */
+    @Test
+    @DisplayName("Сохранение и удаление задачи - кэш тега не сбрасывается до фиксации")
+    void saveAndDelete_ShouldNotEvictTagCacheBeforeCommit() {
+        Cache tagsCache = cacheManager.getCache("tagsCache");
+        assertNotNull(tagsCache);
+
+        tagsCache.put(testTag.getId(), "stale");
+        Long taskId = taskService.save(createTestTaskModel("Cached"));
+        assertNotNull(tagsCache.get(testTag.getId()));
+
+        taskService.delete(taskId);
+        assertNotNull(tagsCache.get(testTag.getId()));
+        tagsCache.evict(testTag.getId());
+    }
+
     /**
      * Тестирует попытку удаления несуществующей задачи.
      * <p>
@@ -224,6 +350,45 @@ class TaskServiceTest {
         }
     }
 
+    /**
+     * Тестирует курсорную пагинацию по дате.
+     * <p>
+     * Проверяет, что обход порциями возвращает все задачи ровно один раз
+     * в порядке (дата, id) с задачами без даты в конце, а у последней порции нет курсора.
+     */
+    @Test
+    @DisplayName("Курсорная пагинация - обходит все задачи без повторов")
+    void getAllTasksByCursor_ShouldWalkAllTasks() {
+        for (int i = 1; i <= 5; i++) {
+            TaskEntity task = createAndSaveTestTask("Task " + i);
+            task.setTaskDate(LocalDate.now().plusDays(5 - i));
+        }
+        taskRepository.flush();
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.update("INSERT INTO task(name, description, uid_tag, uid_type) VALUES (?, '', ?, ?)",
+                    "Undated " + i, testTag.getId(), testType.getId());
+        }
+
+        for (int size : new int[]{2, 5, 8}) {
+            List<String> names = new ArrayList<>();
+            String cursor = null;
+            CursorPage<TaskModel> page;
+            do {
+                page = taskService.getAllTasks(cursor, size, TaskCursorSort.DATE);
+                page.getContent().forEach(task -> names.add(task.getName()));
+                cursor = page.getNextCursor();
+            } while (page.isHasNext());
+
+            assertEquals(List.of("Task 5", "Task 4", "Task 3", "Task 2", "Task 1",
+                    "Undated 1", "Undated 2", "Undated 3"), names, "Размер порции " + size);
+            assertNull(page.getNextCursor());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.getAllTasks("not-a-cursor", 2, TaskCursorSort.ID));
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.getAllTasks(null, 10_000_000, TaskCursorSort.ID));
+    }
+
     /**
      * Тестирует получение списка задач из пустой базы данных.
      * <p>
@@ -236,6 +401,36 @@ class TaskServiceTest {
         assertTrue(tasks.isEmpty());
     }
 
+    /**
+     * Тестирует потоковую выгрузку задач в формате NDJSON.
+     * <p>
+     * Проверяет, что каждая задача записана отдельной строкой,
+     * а запрос без Accept по-прежнему получает JSON-массив.
+     */
+    @Test
+    @WithMockUser
+    @DisplayName("Потоковая выгрузка задач - по одной задаче на строку")
+    void streamAllTasks_ShouldWriteOneTaskPerLine() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            createAndSaveTestTask("Task " + i);
+        }
+        taskRepository.flush();
+
+        String body = mockMvc.perform(get("https://localhost:8443/api/tasks")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Task 1\""));
+
+        mockMvc.perform(get("https://localhost:8443/api/tasks"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
     /**
      * Тестирует загрузку файла для задачи.
      * <p>
@@ -246,6 +441,8 @@ class TaskServiceTest {
     @WithMockUser(roles = "ADMIN")
     @DisplayName("Загрузка файла - успешный сценарий")
     void uploadFile_ShouldReturnSuccessMessage() throws Exception {
+        Long taskId = taskService.save(createTestTaskModel("Task with file"));
+
         // Подготовка тестового файла
         MockMultipartFile file = new MockMultipartFile(
                 "file",
@@ -255,10 +452,273 @@ class TaskServiceTest {
         );
 
         // Выполнение запроса
-        mockMvc.perform(multipart("https://localhost:8443/api/tasks/2/upload")
+        mockMvc.perform(multipart("https://localhost:8443/api/tasks/" + taskId + "/upload")
                         .file(file)
                         .contentType(MediaType.MULTIPART_FORM_DATA))
                 .andExpect(status().isOk());
+        mockMvc.perform(get("https://localhost:8443/api/tasks/" + taskId + "/attachments/test.txt"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Test file content"));
+    }
+
+    /**
+     * Тестирует загрузку файла с пробелом и скобками в имени.
+     * <p>
+     * Имя файла клиента сохраняется без пути, вложение доступно по этому имени.
+     */
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Загрузка файла - имя с пробелом")
+    void uploadFile_ShouldAcceptNameWithSpace() throws Exception {
+        Long taskId = taskService.save(createTestTaskModel("Task with spaced file"));
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "C:\\docs\\report (1).pdf",
+                "application/pdf",
+                "Report content".getBytes()
+        );
+
+        mockMvc.perform(multipart("https://localhost:8443/api/tasks/" + taskId + "/upload")
+                        .file(file)
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isOk())
+                .andExpect(content().string("File report (1).pdf was upload!"));
+        mockMvc.perform(get("https://localhost:8443/api/tasks/{id}/attachments/{name}", taskId, "report (1).pdf"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Report content"));
+    }
+
+    /**
+     * Тестирует, что одинаковое содержимое разных задач хранится один раз со счетчиком ссылок.
+     */
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Вложение - одинаковое содержимое хранится один раз")
+    void attachment_ShouldDeduplicateContent() throws Exception {
+        Long firstId = taskService.save(createTestTaskModel("First"));
+        Long secondId = taskService.save(createTestTaskModel("Second"));
+        byte[] content = "same content".getBytes();
+
+        AttachmentInfo first = attachmentService.store(firstId, "a.txt", new ByteArrayInputStream(content), content.length);
+        AttachmentInfo second = attachmentService.store(secondId, "b.txt", new ByteArrayInputStream(content), content.length);
+
+        assertEquals(first.getSha256(), second.getSha256());
+        assertEquals(2, attachmentBlobRepository.findById(first.getSha256()).orElseThrow().getRefCount());
+        assertEquals(attachmentService.find(firstId, "a.txt").getPath(), attachmentService.find(secondId, "b.txt").getPath());
+    }
+
+    /**
+     * Тестирует потоковую загрузку вложения и его выгрузку целиком, диапазоном и условным запросом.
+     */
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("Вложение - загрузка потоком, Range и ETag")
+    void attachment_ShouldSupportRangeAndEtag() throws Exception {
+        Long taskId = taskService.save(createTestTaskModel("Task with attachment"));
+        String url = "https://localhost:8443/api/tasks/" + taskId + "/attachments/report.txt";
+
+        mockMvc.perform(put(url).content("0123456789".getBytes()).contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.size").value(10))
+                .andExpect(jsonPath("$.sha256").value("84d89877f0d4041efb6bf91a16f0248f2fd573e6af05c19f96bedb9f882f7882"));
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        mockMvc.perform(get(url).header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+        mockMvc.perform(get(url).header("Range", "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("https://localhost:8443/api/tasks/" + taskId + "/attachments/missing.txt"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Тестирует удаление тега с задачами: число SQL-операторов не зависит от количества задач.
+     */
+    @Test
+    @DisplayName("Удаление тега - задачи удаляются одним оператором")
+    void deleteTag_ShouldDeleteTasksInBulk() {
+        for (int i = 0; i < 30; i++) {
+            createAndSaveTestTask("Task " + i);
+        }
+        taskRepository.flush();
+
+        QueryStatistics.start();
+        tagService.delete(testTag.getId());
+        int statements = QueryStatistics.stop().getCount();
+
+        assertTrue(statements <= 3, "Ожидалось не более 3 операторов, выполнено " + statements);
+        assertEquals(0, taskRepository.count());
+        assertFalse(tagRepository.existsById(testTag.getId()));
+    }
+
+    /**
+     * Тестирует переименование тегов одним оператором UPDATE без загрузки задач.
+     */
+    @Test
+    @DisplayName("Переименование тегов - один оператор, задачи не загружаются")
+    void renameTags_ShouldUpdateTitlesWithoutLoadingTasks() {
+        createAndSaveTestTask("Task");
+        TagEntity other = tagRepository.save(TagEntity.builder().title("other-tag").build());
+        taskRepository.flush();
+
+        QueryStatistics.start();
+        TagModel renamed = tagService.rename(testTag.getId(), "renamed");
+        int statements = QueryStatistics.stop().getCount();
+        assertEquals(1, statements);
+        assertNull(renamed.getTasks());
+        assertEquals("renamed", tagRepository.findTitleById(testTag.getId()).orElseThrow());
+
+        tagService.renameAll(List.of(
+                TagModel.builder().id(testTag.getId()).title("first").build(),
+                TagModel.builder().id(other.getId()).title("second").build()));
+        assertEquals("first", tagRepository.findTitleById(testTag.getId()).orElseThrow());
+        assertEquals("second", tagRepository.findTitleById(other.getId()).orElseThrow());
+
+        assertThrows(EntityNotFoundException.class, () -> tagService.rename(-1L, "missing"));
+    }
+
+    /**
+     * Тестирует чтение тега со списком задач одним SQL-оператором (заголовок тега и задачи в одной выборке).
+     */
+    @Test
+    @DisplayName("Тег с задачами - один оператор на список")
+    void tagWithTasks_ShouldBeReadWithSingleStatement() {
+        createAndSaveTestTask("First");
+        createAndSaveTestTask("Second");
+        TagEntity empty = tagRepository.save(TagEntity.builder().title("empty-tag").build());
+        taskRepository.flush();
+        cacheManager.getCache("tagsCache").clear();
+
+        TagWithTask sorted = assertSingleStatement(() -> tagService.getTagWithSortedTasks(testTag.getId()));
+        assertEquals(testTag.getTitle(), sorted.getTitle());
+        assertEquals(2, sorted.getTasks().size());
+
+        TagModel tag = assertSingleStatement(() -> tagService.getAllTaskByTag(testTag.getId()));
+        assertEquals(List.of("First", "Second"), tag.getTasks().stream().map(TaskModel::getName).toList());
+        assertEquals(testType.getId(), tag.getTasks().get(0).getTypeId());
+
+        TagModel withoutTasks = assertSingleStatement(() -> tagService.getAllTaskByTag(empty.getId()));
+        assertEquals("empty-tag", withoutTasks.getTitle());
+        assertTrue(withoutTasks.getTasks().isEmpty());
+
+        assertThrows(EntityNotFoundException.class, () -> tagService.getTagWithSortedTasks(-1L));
+    }
+
+    /**
+     * Тестирует сводку по тегам: агрегаты по задачам тега без загрузки задач.
+     */
+    @Test
+    @DisplayName("Сводка по тегам - количество задач, даты и типы")
+    void getTagSummaries_ShouldAggregateTasks() {
+        TypeEntity otherType = typeRepository.save(TypeEntity.builder().title("other-type").level(2).build());
+        tagRepository.save(TagEntity.builder().title("empty-tag").build());
+        createAndSaveTestTask("Today");
+        taskRepository.save(TaskEntity.builder()
+                .name("Later")
+                .taskDate(LocalDate.now().plusDays(5))
+                .tag(testTag)
+                .type(otherType)
+                .build());
+        taskRepository.flush();
+
+        Page<TagSummary> page = tagService.getTagSummaries(PageRequest.of(0, 10));
+
+        assertEquals(1, page.getTotalElements());
+        TagSummary summary = page.getContent().get(0);
+        assertEquals(testTag.getId(), summary.getId());
+        assertEquals(2, summary.getTaskCount());
+        assertEquals(LocalDate.now(), summary.getFirstTaskDate());
+        assertEquals(LocalDate.now().plusDays(5), summary.getLastTaskDate());
+        assertEquals(Map.of(testType.getId(), 1L, otherType.getId(), 1L), summary.getTasksByType());
+    }
+
+    /**
+     * Тестирует выборку за диапазон дат: дни по порядку, задачи дня по убыванию приоритета,
+     * ограничение на день отсекает задачи с меньшим приоритетом; выборка - один запрос.
+     */
+    @Test
+    @DisplayName("Задачи за диапазон дат - по дням и приоритету, с ограничением на день")
+    void streamTasksByDateRange_ShouldGroupByDayInPriorityOrder() {
+        TypeEntity urgent = typeRepository.save(TypeEntity.builder().title("urgent").level(9).build());
+        LocalDate today = LocalDate.now();
+        TaskEntity low = saveTask("low", today, testType);
+        TaskEntity high = saveTask("high", today, urgent);
+        TaskEntity later = saveTask("later", today.plusDays(2), testType);
+        saveTask("outside", today.plusDays(3), urgent);
+        taskRepository.flush();
+
+        List<DayTasks> days = new ArrayList<>();
+        QueryStatistics.start();
+        taskService.streamTasksByDateRange(today, today.plusDays(2), null, days::add);
+        assertEquals(1, QueryStatistics.stop().getCount());
+
+        assertEquals(List.of(today, today.plusDays(2)), days.stream().map(DayTasks::getDate).toList());
+        assertEquals(List.of(high.getId(), low.getId()), days.get(0).getTasks().stream().map(t -> t.getId()).toList());
+        assertEquals("urgent", days.get(0).getTasks().get(0).getTypeTitle());
+        assertEquals(later.getId(), days.get(1).getTasks().get(0).getId());
+
+        List<DayTasks> limited = new ArrayList<>();
+        taskService.streamTasksByDateRange(today, today.plusDays(2), 1, limited::add);
+        assertEquals(List.of(high.getId()), limited.get(0).getTasks().stream().map(t -> t.getId()).toList());
+        assertEquals(1, limited.get(1).getTasks().size());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.streamTasksByDateRange(today, today.minusDays(1), null, days::add));
+    }
+
+    /**
+     * Тестирует выборку самых срочных задач: по убыванию приоритета типа, затем по дате,
+     * прошедшие задачи не попадают; задачи читаются только до k.
+     */
+    @Test
+    @DisplayName("Самые срочные задачи - приоритет типа, затем дата")
+    void getTopTasks_ShouldOrderByLevelThenDate() {
+        TypeEntity urgent = typeRepository.save(TypeEntity.builder().title("urgent").level(9).build());
+        TypeEntity alsoUrgent = typeRepository.save(TypeEntity.builder().title("also urgent").level(9).build());
+        LocalDate today = LocalDate.now();
+        TaskEntity low = saveTask("low", today, testType);
+        TaskEntity urgentLater = saveTask("urgent later", today.plusDays(5), urgent);
+        TaskEntity urgentSoon = saveTask("urgent soon", today.plusDays(1), alsoUrgent);
+        TaskEntity urgentToday = saveTask("urgent today", today, urgent);
+        taskRepository.flush();
+        // Прошедшую задачу не пропускает проверка даты сущности
+        jdbcTemplate.update("INSERT INTO task(name, description, task_date, uid_tag, uid_type) VALUES ('urgent past', '', ?, ?, ?)",
+                today.minusDays(1), testTag.getId(), urgent.getId());
+        // Приоритеты берутся из снимка реестра типов: он перечитывается в транзакции теста
+        typeRegistry.reload();
+
+        List<GetTaskInfo> top = taskService.getTopTasks(10);
+        assertEquals(List.of(urgentToday.getId(), urgentSoon.getId(), urgentLater.getId(), low.getId()),
+                top.stream().map(GetTaskInfo::getId).toList());
+        assertEquals("also urgent", top.get(1).getTypeTitle());
+
+        QueryStatistics.start();
+        List<GetTaskInfo> first = taskService.getTopTasks(2);
+        int statements = QueryStatistics.stop().getCount();
+        assertEquals(List.of(urgentToday.getId(), urgentSoon.getId()), first.stream().map(GetTaskInfo::getId).toList());
+        assertTrue(statements <= 2, "Ожидалось не более 2 запросов (выборки двух типов уровня 9), выполнено "
+                + statements);
+
+        assertThrows(IllegalArgumentException.class, () -> taskService.getTopTasks(0));
+    }
+
+    private TaskEntity saveTask(String name, LocalDate date, TypeEntity type) {
+        return taskRepository.save(TaskEntity.builder()
+                .name(name)
+                .description(name)
+                .taskDate(date)
+                .tag(testTag)
+                .type(type)
+                .build());
     }
 
     /**
@@ -282,6 +742,15 @@ class TaskServiceTest {
      * @param name название задачи
      * @return созданная модель задачи
      */
+    /**
+     * Выполняет код и проверяет, что он выполнил ровно один SQL-оператор.
+     */
+    private static <T> T assertSingleStatement(Supplier<T> code) {
+        AtomicReference<T> result = new AtomicReference<>();
+        assertEquals(1, QueryAssertions.assertMaxQueries(1, () -> result.set(code.get())).getCount());
+        return result.get();
+    }
+
     private TaskModel createTestTaskModel(String name) {
         return TaskModel.builder()
                 .name(name)
@@ -0,0 +1,101 @@
+package com.billing.testtask;
+
+import com.billing.testtask.dto.EncodedResponse;
+import com.billing.testtask.dto.TypeCatalog;
+import com.billing.testtask.dto.TypeInfo;
+import com.billing.testtask.service.TypeService;
+import com.billing.testtask.service.impl.TypeResponseCache;
+import com.billing.testtask.service.impl.TypeResponseCache.ContentCoding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты для {@link TypeResponseCache}.
+ * Проверяют выбор кодировки по Accept-Encoding и пересборку ответов при изменении типов.
+ */
+class TypeResponseCacheTest {
+
+    private static final byte[] BODY = "[]".getBytes();
+
+    /**
+     * Тестирует выбор кодировки: Brotli предпочтительнее gzip при равном q,
+     * q=0 исключает кодировку, отсутствующий вариант не выбирается.
+     */
+    @Test
+    @DisplayName("Выбор кодировки по Accept-Encoding")
+    void negotiate_ShouldRespectQualityAndAvailability() {
+        EncodedResponse all = new EncodedResponse("W/\"1\"", BODY, BODY, BODY);
+        EncodedResponse gzipOnly = new EncodedResponse("W/\"1\"", BODY, BODY, null);
+
+        assertEquals(ContentCoding.IDENTITY, TypeResponseCache.negotiate(null, all));
+        assertEquals(ContentCoding.BROTLI, TypeResponseCache.negotiate("gzip, deflate, br", all));
+        assertEquals(ContentCoding.GZIP, TypeResponseCache.negotiate("br;q=0.5, gzip", all));
+        assertEquals(ContentCoding.GZIP, TypeResponseCache.negotiate("br;q=0, *", all));
+        assertEquals(ContentCoding.GZIP, TypeResponseCache.negotiate("br, gzip", gzipOnly));
+        assertEquals(ContentCoding.IDENTITY, TypeResponseCache.negotiate("deflate", all));
+    }
+
+    /**
+     * Тестирует, что ответы строятся один раз, сжатые варианты совпадают с JSON,
+     * а после события изменения типов ответы пересобираются.
+     */
+    @Test
+    @DisplayName("Готовые ответы пересобираются только при изменении типов")
+    void get_ShouldReuseResponsesUntilTypesChange() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<TypeInfo> types = IntStream.range(0, 20)
+                .mapToObj(i -> new TypeInfo((long) i, "type-" + i, i))
+                .toList();
+        TypeService typeService = mock(TypeService.class);
+        when(typeService.getCatalog()).thenReturn(catalog(1, "v1", types), catalog(2, "v2", types));
+
+        TypeResponseCache cache = new TypeResponseCache(typeService, objectMapper);
+        EncodedResponse first = cache.get(true);
+        assertSame(first, cache.get(true));
+        assertEquals("W/\"v1\"", first.getEtag());
+        assertArrayEquals(objectMapper.writeValueAsBytes(types), first.getIdentity());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(first.getGzip()))) {
+            assertArrayEquals(first.getIdentity(), gzip.readAllBytes());
+        }
+        verify(typeService, times(1)).getCatalog();
+
+        cache.onTypesChanged(null);
+        assertEquals("W/\"v2\"", cache.get(true).getEtag());
+        verify(typeService, times(2)).getCatalog();
+    }
+
+    /**
+     * Тестирует, что пересборка по устаревшему снимку, завершившаяся после пересборки по более новому,
+     * не заменяет опубликованные ответы, а ETag и тело всегда относятся к одному снимку.
+     */
+    @Test
+    @DisplayName("Устаревший снимок типов не заменяет более новые ответы")
+    void onTypesChanged_ShouldIgnoreStaleSnapshot() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<TypeInfo> before = List.of(new TypeInfo(1L, "old", 1));
+        List<TypeInfo> after = List.of(new TypeInfo(1L, "new", 1));
+        TypeService typeService = mock(TypeService.class);
+        when(typeService.getCatalog()).thenReturn(catalog(2, "v2", after), catalog(1, "v1", before));
+
+        TypeResponseCache cache = new TypeResponseCache(typeService, objectMapper);
+        EncodedResponse current = cache.get(false);
+        cache.onTypesChanged(null);
+
+        assertSame(current, cache.get(false));
+        assertEquals("W/\"v2\"", current.getEtag());
+        assertArrayEquals(objectMapper.writeValueAsBytes(after), current.getIdentity());
+    }
+
+    private static TypeCatalog catalog(long generation, String version, List<TypeInfo> types) {
+        return new TypeCatalog(generation, version, types, types.reversed());
+    }
+}